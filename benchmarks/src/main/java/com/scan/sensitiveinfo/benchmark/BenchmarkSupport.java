@@ -0,0 +1,68 @@
+package com.scan.sensitiveinfo.benchmark;
+
+import com.scan.sensitiveinfo.ConfigLoader;
+import com.scan.sensitiveinfo.ScanRules;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Shared setup of the benchmarks.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * The rules of the scanner with .properties and .yml files enabled, so that both scan paths are measured.
+     */
+    static ScanRules rules() throws IOException {
+        ConfigLoader.loadSensitivePatternsConfig();
+        ConfigLoader.loadIgnorePathsConfig();
+        ConfigLoader.loadLogPatternsConfig();
+        ConfigLoader.loadIgnoreVariablesConfig();
+        return new ScanRules(ConfigLoader.getSensitivePatternsConfig(),
+                ConfigLoader.getLogPatterns(),
+                ConfigLoader.getIgnoreVariables(),
+                ConfigLoader.getIgnorePaths(),
+                Arrays.asList(".java", ".properties", ".yml"));
+    }
+
+    static void deleteRecursively(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Discards the report, the benchmarks measure the scan and not the disk.
+     */
+    static class NullWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void write(String value) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.scan.sensitiveinfo.benchmark;
+
+import com.scan.sensitiveinfo.JavaSourceAnalyzer;
+import com.scan.sensitiveinfo.ScanRules;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a Java file and collecting its sensitive fields, the getters returning them and the log statements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JavaSourceAnalyzerBenchmark {
+
+    @Param({"200", "2000"})
+    public int lines;
+
+    private ScanRules rules;
+    private Path path;
+    private String source;
+    private JavaSourceAnalyzer analysis;
+
+    @Setup
+    public void setUp() throws Exception {
+        rules = BenchmarkSupport.rules();
+        path = Paths.get("Generated.java");
+        // A file with a sensitive field, so that the getter and log statement collection has work to do
+        SyntheticRepoGenerator generator = new SyntheticRepoGenerator().setLinesPerFile(lines);
+        long seed = 0;
+        do {
+            source = generator.javaSource(++seed);
+            analysis = JavaSourceAnalyzer.analyze(path, source, rules);
+        } while (analysis.getSensitiveFields().isEmpty());
+    }
+
+    @Benchmark
+    public JavaSourceAnalyzer analyze() throws Exception {
+        return JavaSourceAnalyzer.analyze(path, source, rules);
+    }
+
+    @Benchmark
+    public void collectSensitiveGetters(Blackhole blackhole) {
+        blackhole.consume(analysis.getSensitiveGetters());
+    }
+
+    @Benchmark
+    public void collectLogStatements(Blackhole blackhole) {
+        blackhole.consume(analysis.getLogStatements());
+    }
+}
@@ -0,0 +1,59 @@
+package com.scan.sensitiveinfo.benchmark;
+
+import com.scan.sensitiveinfo.KeywordMatcher;
+import com.scan.sensitiveinfo.ScanRules;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword matching of single lines, as done by the line checks, and of whole files, as done by the pre-filter.
+ * One operation covers all lines of one generated file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeywordMatchingBenchmark {
+
+    @Param({"java", "properties"})
+    public String fileType;
+
+    @Param({"0.01"})
+    public double leakDensity;
+
+    private KeywordMatcher matcher;
+    private String[] lines;
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws Exception {
+        ScanRules rules = BenchmarkSupport.rules();
+        matcher = rules.getSensitiveMatcher();
+        SyntheticRepoGenerator generator = new SyntheticRepoGenerator().setLeakDensity(leakDensity).setLinesPerFile(1000);
+        String text = "java".equals(fileType) ? generator.javaSource(1) : generator.propertiesFile(1);
+        lines = text.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = lines[i].trim();
+        }
+        content = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void containsAnyPerLine(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(matcher.containsAny(line));
+        }
+    }
+
+    @Benchmark
+    public int findAllInBytes() {
+        int[] hits = {0};
+        matcher.findAll(content, 0, content.length, (keyword, start, end) -> hits[0]++);
+        return hits[0];
+    }
+}
@@ -0,0 +1,45 @@
+package com.scan.sensitiveinfo.benchmark;
+
+import com.scan.sensitiveinfo.ScanRules;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The log pattern and ignored variable regular expressions, evaluated on every line of one generated Java file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleEvaluationBenchmark {
+
+    private ScanRules rules;
+    private String[] lines;
+
+    @Setup
+    public void setUp() throws Exception {
+        rules = BenchmarkSupport.rules();
+        lines = new SyntheticRepoGenerator().setLinesPerFile(1000).javaSource(1).split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = lines[i].trim();
+        }
+    }
+
+    @Benchmark
+    public void isLogStatement(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(rules.isLogStatement(line));
+        }
+    }
+
+    @Benchmark
+    public void isIgnoredVariable(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(rules.isIgnoredVariable(line));
+        }
+    }
+}
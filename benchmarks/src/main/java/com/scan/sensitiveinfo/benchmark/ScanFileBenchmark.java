@@ -0,0 +1,74 @@
+package com.scan.sensitiveinfo.benchmark;
+
+import com.scan.sensitiveinfo.Finding;
+import com.scan.sensitiveinfo.ScanRules;
+import com.scan.sensitiveinfo.ScanStatistics;
+import com.scan.sensitiveinfo.SensitiveInfoScanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * All checks on one generated file, read from disk by scanFile and from memory by scanContent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanFileBenchmark {
+
+    @Param({"java", "properties", "yml"})
+    public String fileType;
+
+    @Param({"200", "5000"})
+    public int lines;
+
+    @Param({"0.01"})
+    public double leakDensity;
+
+    private ScanRules rules;
+    private ScanStatistics statistics;
+    private Path directory;
+    private Path file;
+    private byte[] content;
+
+    @Setup
+    public void setUp() throws Exception {
+        rules = BenchmarkSupport.rules();
+        statistics = new ScanStatistics();
+        SyntheticRepoGenerator generator = new SyntheticRepoGenerator().setLinesPerFile(lines).setLeakDensity(leakDensity);
+        String text;
+        if ("java".equals(fileType)) {
+            text = generator.javaSource(1);
+        } else if ("yml".equals(fileType)) {
+            text = generator.yamlFile(1);
+        } else {
+            text = generator.propertiesFile(1);
+        }
+        content = text.getBytes(StandardCharsets.UTF_8);
+        directory = Files.createTempDirectory("siscan-bench");
+        file = directory.resolve("Generated." + fileType);
+        Files.write(file, content);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Finding> scanFile() throws Exception {
+        return SensitiveInfoScanner.scanFile(file, rules, statistics);
+    }
+
+    @Benchmark
+    public List<Finding> scanContent() throws Exception {
+        return SensitiveInfoScanner.scanContent(file, content, rules, statistics);
+    }
+}
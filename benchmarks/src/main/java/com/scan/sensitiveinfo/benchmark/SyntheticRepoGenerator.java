@@ -0,0 +1,246 @@
+package com.scan.sensitiveinfo.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Generates a synthetic repository for the benchmarks. The same settings always produce the same files.
+ *
+ * Java classes get fields, getters and log statements, configuration files get .properties and .yml
+ * entries. A share of the lines are planted leaks the scanner reports, the other lines still contain
+ * keyword fragments such as "certain" or "authorName" so that the pre-filter has work to do.
+ * Some files are put below src/test/java, which the default rules ignore.
+ */
+public class SyntheticRepoGenerator {
+
+    private static final String[] SENSITIVE_FIELDS = {"password", "token", "secret", "apiKey", "salt", "cert"};
+    private static final String[] PLAIN_FIELDS = {"name", "count", "certainty", "authorName", "createdAt", "region"};
+    private static final String[] LOGGERS = {"log.info", "logger.debug", "LOGGER.warn", "System.out.println"};
+    private static final String[] CONFIG_LEAKS = {"db.passwd", "snmp.community", "hash.salt", "tls.cert", "service.password"};
+    private static final String[] CONFIG_KEYS = {"server.port", "cache.size", "feature.enabled", "author.name", "retry.count"};
+
+    private long seed = 42;
+    private int files = 1000;
+    private double javaShare = 0.8;
+    private double leakDensity = 0.01;
+    private int linesPerFile = 200;
+    private double testShare = 0.1;
+
+    public SyntheticRepoGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public SyntheticRepoGenerator setFiles(int files) {
+        this.files = files;
+        return this;
+    }
+
+    /**
+     * Share of Java sources among the files, the others are configuration files.
+     */
+    public SyntheticRepoGenerator setJavaShare(double javaShare) {
+        this.javaShare = javaShare;
+        return this;
+    }
+
+    /**
+     * Probability that a generated line is a planted leak.
+     */
+    public SyntheticRepoGenerator setLeakDensity(double leakDensity) {
+        this.leakDensity = leakDensity;
+        return this;
+    }
+
+    public SyntheticRepoGenerator setLinesPerFile(int linesPerFile) {
+        this.linesPerFile = linesPerFile;
+        return this;
+    }
+
+    /**
+     * Share of the files placed in ignored test directories.
+     */
+    public SyntheticRepoGenerator setTestShare(double testShare) {
+        this.testShare = testShare;
+        return this;
+    }
+
+    /**
+     * Writes the repository below root and returns the number of bytes written.
+     */
+    public long generate(Path root) throws IOException {
+        Random random = new Random(seed);
+        long bytes = 0;
+        for (int i = 0; i < files; i++) {
+            boolean test = random.nextDouble() < testShare;
+            boolean java = random.nextDouble() < javaShare;
+            String module = "m" + (i % 20);
+            Path file;
+            String content;
+            if (java) {
+                String className = "Generated" + i;
+                String directory = test ? "src/test/java/com/example/" : "src/main/java/com/example/";
+                file = root.resolve(directory + module + "/" + className + ".java");
+                content = javaSource(random, module, className);
+            } else {
+                boolean yaml = random.nextBoolean();
+                file = root.resolve("src/main/resources/" + module + "/config" + i + (yaml ? ".yml" : ".properties"));
+                content = yaml ? yamlFile(random) : propertiesFile(random);
+            }
+            byte[] encoded = content.getBytes(StandardCharsets.UTF_8);
+            Files.createDirectories(file.getParent());
+            Files.write(file, encoded);
+            bytes += encoded.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * One Java class of about linesPerFile lines.
+     */
+    public String javaSource(long fileSeed) {
+        return javaSource(new Random(fileSeed), "m0", "Generated" + fileSeed);
+    }
+
+    /**
+     * One .properties file of linesPerFile lines.
+     */
+    public String propertiesFile(long fileSeed) {
+        return propertiesFile(new Random(fileSeed));
+    }
+
+    /**
+     * One .yml file of linesPerFile lines.
+     */
+    public String yamlFile(long fileSeed) {
+        return yamlFile(new Random(fileSeed));
+    }
+
+    private String javaSource(Random random, String module, String className) {
+        StringBuilder source = new StringBuilder(linesPerFile * 48);
+        source.append("package com.example.").append(module).append(";\n\n");
+        source.append("public class ").append(className).append(" {\n");
+        source.append("    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(")
+                .append(className).append(".class);\n");
+
+        String sensitive = SENSITIVE_FIELDS[random.nextInt(SENSITIVE_FIELDS.length)];
+        boolean hasSensitiveField = random.nextDouble() < 0.5;
+        if (hasSensitiveField) {
+            source.append("    private String ").append(sensitive).append(";\n");
+            source.append("    public String get").append(capitalize(sensitive)).append("() {\n        return ")
+                    .append(sensitive).append(";\n    }\n");
+        }
+        for (String field : PLAIN_FIELDS) {
+            source.append("    private String ").append(field).append(";\n");
+        }
+
+        int lines = 10;
+        int method = 0;
+        while (lines < linesPerFile) {
+            source.append("\n    public void process").append(method++).append("(String input) {\n");
+            lines += 2;
+            for (int statement = 0; statement < 8 && lines < linesPerFile; statement++, lines++) {
+                source.append("        ").append(javaStatement(random, sensitive, hasSensitiveField)).append('\n');
+            }
+            source.append("    }\n");
+            lines++;
+        }
+        return source.append("}\n").toString();
+    }
+
+    private String javaStatement(Random random, String sensitive, boolean hasSensitiveField) {
+        String logger = LOGGERS[random.nextInt(LOGGERS.length)];
+        if (random.nextDouble() < leakDensity) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    return logger + "(\"value of passwd \" + input);";
+                case 1:
+                    return hasSensitiveField
+                            ? logger + "(\"current \" + " + sensitive + ");"
+                            : logger + "(\"community \" + input);";
+                default:
+                    return logger + "(\"salt=\" + input.hashCode());";
+            }
+        }
+        String field = PLAIN_FIELDS[random.nextInt(PLAIN_FIELDS.length)];
+        switch (random.nextInt(5)) {
+            case 0:
+                return logger + "(\"processing \" + " + field + " + \" for \" + input);";
+            case 1:
+                return "int " + field + "Length = input.length() * " + random.nextInt(100) + ";";
+            case 2:
+                return "// The " + field + " is certain to be set by now";
+            case 3:
+                return "if (" + field + " == null) { " + field + " = input.trim(); }";
+            default:
+                return "String copy" + random.nextInt(1000) + " = String.valueOf(" + field + ");";
+        }
+    }
+
+    private String propertiesFile(Random random) {
+        StringBuilder content = new StringBuilder(linesPerFile * 32);
+        for (int line = 0; line < linesPerFile; line++) {
+            if (random.nextDouble() < leakDensity) {
+                content.append(CONFIG_LEAKS[random.nextInt(CONFIG_LEAKS.length)]).append('=')
+                        .append(Long.toHexString(random.nextLong())).append('\n');
+            } else if (line % 10 == 0) {
+                content.append("# Settings of the ").append(PLAIN_FIELDS[random.nextInt(PLAIN_FIELDS.length)]).append('\n');
+            } else {
+                content.append(CONFIG_KEYS[random.nextInt(CONFIG_KEYS.length)]).append('.').append(line).append('=')
+                        .append(random.nextInt(10000)).append('\n');
+            }
+        }
+        return content.toString();
+    }
+
+    private String yamlFile(Random random) {
+        StringBuilder content = new StringBuilder(linesPerFile * 32);
+        for (int line = 0; line < linesPerFile; line++) {
+            if (line % 10 == 0) {
+                content.append("section").append(line / 10).append(":\n");
+            } else if (random.nextDouble() < leakDensity) {
+                String key = CONFIG_LEAKS[random.nextInt(CONFIG_LEAKS.length)];
+                content.append("  ").append(key.substring(key.indexOf('.') + 1)).append(": ")
+                        .append(Long.toHexString(random.nextLong())).append('\n');
+            } else {
+                String key = CONFIG_KEYS[random.nextInt(CONFIG_KEYS.length)];
+                content.append("  ").append(key.replace('.', '-')).append(line).append(": ")
+                        .append(random.nextInt(10000)).append('\n');
+            }
+        }
+        return content.toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Usage: SyntheticRepoGenerator &lt;directory&gt; [files] [java share] [leak density] [seed]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: SyntheticRepoGenerator <directory> [files] [java share] [leak density] [seed]");
+            return;
+        }
+        SyntheticRepoGenerator generator = new SyntheticRepoGenerator();
+        if (args.length > 1) {
+            generator.setFiles(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            generator.setJavaShare(Double.parseDouble(args[2]));
+        }
+        if (args.length > 3) {
+            generator.setLeakDensity(Double.parseDouble(args[3]));
+        }
+        if (args.length > 4) {
+            generator.setSeed(Long.parseLong(args[4]));
+        }
+        long bytes = generator.generate(Paths.get(args[0]));
+        System.out.println("Generated " + generator.files + " files, " + bytes + " bytes in " + args[0]);
+    }
+}
@@ -0,0 +1,94 @@
+package com.scan.sensitiveinfo.benchmark;
+
+import com.scan.sensitiveinfo.ReportFormat;
+import com.scan.sensitiveinfo.ReportGenerator;
+import com.scan.sensitiveinfo.ScanRules;
+import com.scan.sensitiveinfo.ScanStatistics;
+import com.scan.sensitiveinfo.Scanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End to end scan of a generated repository. Besides scans per second it reports the files and
+ * megabytes scanned per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TraverseRepositoryBenchmark {
+
+    @Param({"2000"})
+    public int files;
+
+    @Param({"0.8"})
+    public double javaShare;
+
+    @Param({"0.01"})
+    public double leakDensity;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private ScanRules rules;
+    private Path repository;
+    private long repositoryBytes;
+
+    /**
+     * Files and megabytes handed to the scanner, JMH reports them per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long files;
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+            megabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        rules = BenchmarkSupport.rules();
+        repository = Files.createTempDirectory("siscan-repo");
+        new SyntheticRepoGenerator()
+                .setFiles(files)
+                .setJavaShare(javaShare)
+                .setLeakDensity(leakDensity)
+                .generate(repository);
+        // Only the files the scan reads count for the throughput
+        try (Stream<Path> paths = Files.walk(repository)) {
+            repositoryBytes = paths.filter(Files::isRegularFile)
+                    .filter(path -> !rules.isIgnoredPath(path) && rules.isSupportedFileType(path))
+                    .mapToLong(path -> path.toFile().length())
+                    .sum();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkSupport.deleteRecursively(repository);
+    }
+
+    @Benchmark
+    public long traverseRepository(Throughput throughput) throws Exception {
+        ScanStatistics statistics;
+        long findings;
+        try (ReportGenerator report = new ReportGenerator(new BenchmarkSupport.NullWriter(), ReportFormat.JSONL)) {
+            statistics = Scanner.traverseRepository(repository, rules, threads, report);
+            findings = report.getFindingCount();
+        }
+        throughput.files += statistics.getFilesScanned();
+        throughput.megabytes += repositoryBytes / 1e6;
+        return findings;
+    }
+}
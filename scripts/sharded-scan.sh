@@ -0,0 +1,68 @@
+#!/bin/sh
+# Scans PATH with N scanner processes on this machine and merges their partial reports into REPORT.
+#
+#   scripts/sharded-scan.sh PATH REPORT N [options...]
+#
+# The options go to every shard, e.g. --git or --archives. --format only applies to the merged report.
+# Each shard gets the CPU cores divided by N as --threads unless --threads is given.
+# SISCAN_JAR points to the scanner jar, target/SIScan-1.0.jar by default. JAVA_OPTS is passed to every JVM.
+
+set -u
+
+if [ $# -lt 3 ]; then
+    echo "Usage: $0 PATH REPORT N [options...]" >&2
+    exit 2
+fi
+
+SCAN_PATH=$1
+REPORT=$2
+SHARDS=$3
+shift 3
+
+JAR=${SISCAN_JAR:-$(dirname "$0")/../target/SIScan-1.0.jar}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+SHARD_OPTIONS=""
+MERGE_OPTIONS=""
+THREADS_GIVEN=false
+for option in "$@"; do
+    case $option in
+        --format=*) MERGE_OPTIONS="$MERGE_OPTIONS $option" ;;
+        --threads=*) THREADS_GIVEN=true; SHARD_OPTIONS="$SHARD_OPTIONS $option" ;;
+        *) SHARD_OPTIONS="$SHARD_OPTIONS $option" ;;
+    esac
+done
+if [ "$THREADS_GIVEN" = false ]; then
+    CORES=$(getconf _NPROCESSORS_ONLN 2>/dev/null || echo 1)
+    THREADS=$((CORES / SHARDS))
+    [ "$THREADS" -lt 1 ] && THREADS=1
+    SHARD_OPTIONS="$SHARD_OPTIONS --threads=$THREADS"
+fi
+
+PIDS=""
+PARTIALS=""
+i=1
+while [ "$i" -le "$SHARDS" ]; do
+    PARTIAL="$REPORT.shard-$i-of-$SHARDS.jsonl"
+    PARTIALS="$PARTIALS $PARTIAL"
+    # shellcheck disable=SC2086
+    "$JAVA" ${JAVA_OPTS:-} -jar "$JAR" "$SCAN_PATH" "$PARTIAL" --shard="$i/$SHARDS" $SHARD_OPTIONS > "$PARTIAL.log" 2>&1 &
+    PIDS="$PIDS $!"
+    i=$((i + 1))
+done
+
+FAILED=0
+for pid in $PIDS; do
+    if ! wait "$pid"; then
+        FAILED=1
+    fi
+done
+if [ "$FAILED" -ne 0 ]; then
+    echo "A shard failed, see $REPORT.shard-*.log" >&2
+    exit 1
+fi
+
+# shellcheck disable=SC2086
+"$JAVA" ${JAVA_OPTS:-} -jar "$JAR" --merge="$REPORT" $PARTIALS $MERGE_OPTIONS || exit 1
+# shellcheck disable=SC2086
+rm -f $PARTIALS
@@ -0,0 +1,386 @@
+package com.scan.sensitiveinfo;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Scans the files inside zip, jar, war, ear, tar and gzipped tar archives, archives nested in them included.
+ *
+ * The archive is read as one stream and every entry is scanned as it comes by, nothing is extracted
+ * to disk. Findings name the entry after the archive, e.g. app.war!/WEB-INF/lib/db.jar!/db.properties.
+ * Entries are filtered like files by the ignore paths and file types of the rules.
+ *
+ * Against archive bombs, archives nested deeper than the depth limit are skipped, and the scan of an
+ * archive stops once the entries read from it, nested ones included, add up to the size limit.
+ */
+class ArchiveScanner {
+
+    /**
+     * How deep and how much of an archive is scanned.
+     */
+    static class Limits {
+        private final int depth;
+        private final long bytes;
+
+        Limits(int depth, long bytes) {
+            this.depth = depth;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final List<String> ZIP_EXTENSIONS = Arrays.asList(".zip", ".jar", ".war", ".ear");
+    private static final List<String> TAR_GZ_EXTENSIONS = Arrays.asList(".tar.gz", ".tgz");
+    private static final String TAR_EXTENSION = ".tar";
+    private static final String ENTRY_SEPARATOR = "!/";
+    private static final int TAR_BLOCK = 512;
+
+    private static class SizeLimitException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        SizeLimitException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The part of the archive stream holding one entry. Closing it leaves the archive stream open.
+     */
+    private static class EntryInputStream extends FilterInputStream {
+        private long remaining;
+
+        EntryInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated archive entry");
+            }
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (n < 0) {
+                throw new EOFException("Truncated archive entry");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private final ScanRules rules;
+    private final ScanStatistics statistics;
+    private final GetterIndex index;
+    private final Limits limits;
+    private final List<Finding> findings = new ArrayList<>();
+    private final byte[] buffer = new byte[8192];
+    private long bytesRead;
+
+    private ArchiveScanner(ScanRules rules, ScanStatistics statistics, GetterIndex index, Limits limits) {
+        this.rules = rules;
+        this.statistics = statistics;
+        this.index = index;
+        this.limits = limits;
+    }
+
+    static boolean isArchive(String name) {
+        String lowerCase = name.toLowerCase(Locale.ROOT);
+        return endsWithAny(lowerCase, ZIP_EXTENSIONS) || endsWithAny(lowerCase, TAR_GZ_EXTENSIONS) || lowerCase.endsWith(TAR_EXTENSION);
+    }
+
+    static boolean isArchive(Path path) {
+        Path fileName = path.getFileName();
+        return fileName != null && isArchive(fileName.toString());
+    }
+
+    /**
+     * Findings of the entries of the archive at path, in the order of the entries. An archive that turns out
+     * to be broken, or too big, is reported with the findings of the entries read until then.
+     */
+    static List<Finding> scan(Path path, ScanRules rules, ScanStatistics statistics, GetterIndex index, Limits limits) throws IOException {
+        return scan(path, Files.newInputStream(path), rules, statistics, index, limits);
+    }
+
+    /**
+     * Same as above for an archive read from in, which is closed afterwards.
+     */
+    static List<Finding> scan(Path path, InputStream in, ScanRules rules, ScanStatistics statistics, GetterIndex index,
+                              Limits limits) throws IOException {
+        ArchiveScanner scanner = new ArchiveScanner(rules, statistics, index, limits);
+        try (InputStream archive = new BufferedInputStream(in)) {
+            scanner.scanArchive(path.toString(), archive, 1);
+        } catch (SizeLimitException e) {
+            System.err.println("Stopping the scan of " + path + ": " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Skipping the rest of unreadable archive " + path + ": " + e.getMessage());
+        }
+        return scanner.findings;
+    }
+
+    private void scanArchive(String label, InputStream in, int depth) throws IOException {
+        statistics.recordArchive();
+        String name = label.toLowerCase(Locale.ROOT);
+        // Closing the stream of a nested archive must leave the one of the enclosing archive open
+        if (endsWithAny(name, TAR_GZ_EXTENSIONS)) {
+            try (InputStream tar = new GZIPInputStream(nonClosing(in))) {
+                scanTar(label, tar, depth);
+            }
+        } else if (name.endsWith(TAR_EXTENSION)) {
+            scanTar(label, in, depth);
+        } else {
+            scanZip(label, in, depth);
+        }
+    }
+
+    private void scanZip(String label, InputStream in, int depth) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(nonClosing(in), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    scanEntry(label + ENTRY_SEPARATOR + entry.getName(), zip, depth);
+                }
+            }
+        }
+    }
+
+    // A ustar, GNU or pax tar stream: a 512 byte header per entry, the content padded to whole blocks
+    private void scanTar(String label, InputStream in, int depth) throws IOException {
+        byte[] header = new byte[TAR_BLOCK];
+        String longName = null;
+        while (readBlock(in, header)) {
+            if (isZeroBlock(header)) {
+                return;
+            }
+            if (tarNumber(header, 148, 8) != tarChecksum(header)) {
+                throw new IOException("Bad tar header checksum");
+            }
+            long size = tarNumber(header, 124, 12);
+            byte type = header[156];
+            String name = longName != null ? longName : tarName(header);
+            longName = null;
+            EntryInputStream entry = new EntryInputStream(in, size);
+            if (type == 'L') {
+                // GNU long name of the next entry
+                longName = cString(read(entry), 0, Integer.MAX_VALUE);
+            } else if (type == 'x') {
+                // pax extended header of the next entry
+                longName = paxPath(read(entry));
+            } else if (type == '0' || type == 0 || type == '7') {
+                scanEntry(label + ENTRY_SEPARATOR + name, entry, depth);
+            }
+            drain(entry);
+            drain(new EntryInputStream(in, (TAR_BLOCK - size % TAR_BLOCK) % TAR_BLOCK));
+        }
+    }
+
+    private void scanEntry(String label, InputStream entry, int depth) throws IOException {
+        if (isArchive(label)) {
+            if (depth >= limits.depth) {
+                System.err.println("Skipping " + label + ": nested deeper than " + limits.depth + (limits.depth == 1 ? " archive" : " archives"));
+            } else {
+                try {
+                    scanArchive(label, new BufferedInputStream(nonClosing(entry)), depth + 1);
+                } catch (SizeLimitException e) {
+                    throw e;
+                } catch (IOException e) {
+                    // The enclosing archive is fine, its next entry starts after this one
+                    System.err.println("Skipping the rest of unreadable archive " + label + ": " + e.getMessage());
+                }
+            }
+            drain(entry);
+            return;
+        }
+
+        Path path;
+        try {
+            path = Paths.get(label);
+        } catch (InvalidPathException e) {
+            System.err.println("Skipping archive entry " + label + ": " + e.getMessage());
+            drain(entry);
+            return;
+        }
+        if (rules.isIgnoredPath(path) || !rules.isSupportedFileType(path)) {
+            drain(entry);
+            return;
+        }
+        ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+        byte[] content = read(entry);
+        timer.record(ScanMetrics.Phase.READ);
+        findings.addAll(SensitiveInfoScanner.scanContent(path, content, rules, statistics, null, index));
+    }
+
+    private byte[] read(InputStream entry) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int n;
+        while ((n = entry.read(buffer)) > 0) {
+            count(n);
+            content.write(buffer, 0, n);
+        }
+        return content.toByteArray();
+    }
+
+    // Skipped entries count against the size limit as well, they are decompressed all the same
+    private void drain(InputStream entry) throws IOException {
+        int n;
+        while ((n = entry.read(buffer)) > 0) {
+            count(n);
+        }
+    }
+
+    private void count(int n) throws SizeLimitException {
+        bytesRead += n;
+        if (bytesRead > limits.bytes) {
+            throw new SizeLimitException("more than " + (limits.bytes >> 20) + " MB of content");
+        }
+    }
+
+    private static InputStream nonClosing(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static boolean readBlock(InputStream in, byte[] block) throws IOException {
+        int offset = 0;
+        while (offset < block.length) {
+            int n = in.read(block, offset, block.length - offset);
+            if (n < 0) {
+                if (offset == 0) {
+                    return false;
+                }
+                throw new EOFException("Truncated tar header");
+            }
+            offset += n;
+        }
+        return true;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String tarName(byte[] header) {
+        String name = cString(header, 0, 100);
+        // ustar keeps the directory of long names in a prefix field
+        if (cString(header, 257, 5).equals("ustar")) {
+            String prefix = cString(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    // Octal, or base-256 with the high bit of the first byte set for big values
+    private static long tarNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        int end = offset + length;
+        int i = offset;
+        while (i < end && header[i] == ' ') {
+            i++;
+        }
+        long value = 0;
+        for (; i < end && header[i] >= '0' && header[i] <= '7'; i++) {
+            value = (value << 3) + (header[i] - '0');
+        }
+        if (i < end && header[i] != ' ' && header[i] != 0) {
+            throw new IOException("Bad number in tar header");
+        }
+        return value;
+    }
+
+    private static long tarChecksum(byte[] header) {
+        long sum = 0;
+        for (int i = 0; i < header.length; i++) {
+            // The checksum field itself counts as spaces
+            sum += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+        }
+        return sum;
+    }
+
+    private static String cString(byte[] bytes, int offset, int length) {
+        int end = offset;
+        int limit = (int) Math.min(bytes.length, (long) offset + length);
+        while (end < limit && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    // Records of "LENGTH key=value\n", only the path matters here
+    private static String paxPath(byte[] records) throws IOException {
+        String path = null;
+        int offset = 0;
+        while (offset < records.length) {
+            int space = offset;
+            while (space < records.length && records[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(records, offset, space - offset, StandardCharsets.UTF_8));
+            } catch (NumberFormatException e) {
+                length = -1;
+            }
+            // The record has to hold the length, the space, the key and the newline
+            if (length <= 0 || offset + length > records.length || space + 1 >= offset + length) {
+                throw new IOException("Corrupt pax record at offset " + offset);
+            }
+            String record = new String(records, space + 1, offset + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                path = record.substring("path=".length());
+            }
+            offset += length;
+        }
+        return path;
+    }
+
+    private static boolean endsWithAny(String name, List<String> extensions) {
+        for (String extension : extensions) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
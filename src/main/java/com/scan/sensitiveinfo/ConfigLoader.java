@@ -2,6 +2,8 @@ package com.scan.sensitiveinfo;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -13,6 +15,7 @@ public class ConfigLoader {
     private static Properties logPatternsConfig = new Properties();
     private static Properties ignoreVariablesConfig = new Properties();
     private static Properties scanFileTypesConfig = new Properties();
+    private static Properties entropyConfig = new Properties();
 
 
     public static void loadGitReposConfig() {
@@ -27,6 +30,12 @@ public class ConfigLoader {
         }
     }
 
+    public static void loadGitReposConfig(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            gitReposConfig.load(input);
+        }
+    }
+
     public static void loadSensitivePatternsConfig() {
         try (InputStream input = ConfigLoader.class.getClassLoader().getResourceAsStream("sensitive_patterns.properties")) {
             if (input == null) {
@@ -91,12 +100,35 @@ public class ConfigLoader {
 
     }
 
+    public static void loadEntropyConfig() {
+        try (InputStream input = ConfigLoader.class.getClassLoader().getResourceAsStream("entropy.properties")) {
+            if (input == null) {
+                System.out.println("Sorry, unable to find entropy.properties");
+                return;
+            }
+            entropyConfig.load(input);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * The repository URLs in the order of their keys, repo.url.2 before repo.url.10.
+     */
     public static List<String> getGitReposConfig() {
+        List<String> keys = new ArrayList<>(gitReposConfig.stringPropertyNames());
+        keys.sort(Comparator.comparing((String key) -> key.replaceAll("\\d+$", ""))
+                .thenComparingLong(ConfigLoader::keyNumber));
         List<String> repos = new ArrayList<>();
-        gitReposConfig.stringPropertyNames().forEach(key -> repos.add(gitReposConfig.getProperty(key)));
+        keys.forEach(key -> repos.add(gitReposConfig.getProperty(key).trim()));
         return repos;
     }
 
+    private static long keyNumber(String key) {
+        String digits = key.replaceAll("^.*?(\\d*)$", "$1");
+        return digits.isEmpty() || digits.length() > 18 ? -1 : Long.parseLong(digits);
+    }
+
     public static List<String> getSensitivePatternsConfig() {
         List<String> patterns = new ArrayList<>();
         sensitivePatternsConfig.stringPropertyNames().forEach(key -> patterns.add(sensitivePatternsConfig.getProperty(key)));
@@ -143,4 +175,24 @@ public class ConfigLoader {
                 .stream()
                 .collect(Collectors.toList());
     }
+
+    public static boolean isEntropyEnabled() {
+        return Boolean.parseBoolean(entropyConfig.getProperty("entropy.enabled", "true").trim());
+    }
+
+    public static int getEntropyMinLength() {
+        return Integer.parseInt(entropyConfig.getProperty("entropy.min.length", "16").trim());
+    }
+
+    public static int getEntropyWindow() {
+        return Integer.parseInt(entropyConfig.getProperty("entropy.window", "24").trim());
+    }
+
+    public static double getEntropyBase64Threshold() {
+        return Double.parseDouble(entropyConfig.getProperty("entropy.base64.threshold", "4.2").trim());
+    }
+
+    public static double getEntropyHexThreshold() {
+        return Double.parseDouble(entropyConfig.getProperty("entropy.hex.threshold", "3.2").trim());
+    }
 }
@@ -0,0 +1,249 @@
+package com.scan.sensitiveinfo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Finds random looking strings, such as API keys and tokens, whatever the name of the variable holding them.
+ *
+ * Candidates are the runs of base64 or hex characters that start a string literal, after a quote, or a
+ * value, after = or :. A run needs a letter and a digit and at least the minimum length. A window slides
+ * over a longer run, and the run is reported when the Shannon entropy of any window reaches the threshold
+ * of its character set. Measuring windows, not whole runs, keeps a key from being diluted by the text
+ * around it, and keeps the thresholds meaningful for runs of any length.
+ *
+ * A run shorter than the window, such as an AWS access key id of 20 characters, is measured whole unless
+ * it looks like a name, a number or a path instead. Its entropy is at most log2 of its length, so the
+ * threshold is scaled down by log2(length) / log2(window).
+ * Runs of uppercase letters and digits only, the alphabet of key ids, are measured against the base64
+ * threshold scaled down to an alphabet of 36 characters.
+ *
+ * The scan runs over the raw bytes with a table of character counts, no object is created per
+ * character. Instances are immutable and can be shared between threads.
+ */
+final class EntropyDetector {
+
+    // Classes of the bytes. Base64 is the standard and the URL-safe alphabet without the padding,
+    // which is also the = of an assignment. A quote, = or : starts a value, blanks keep it started.
+    private static final int BASE64 = 1;
+    private static final int HEX = 2;
+    private static final int LETTER = 4;
+    private static final int DIGIT = 8;
+    private static final int VALUE_START = 16;
+    private static final int BLANK = 32;
+    private static final int UPPERCASE_OR_DIGIT = 64;
+    private static final int SLASH = 128;
+    private static final int LOWERCASE = 256;
+    private static final short[] CHARACTER_CLASS = new short[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            boolean letter = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+            boolean digit = b >= '0' && b <= '9';
+            boolean hex = digit || (b >= 'a' && b <= 'f') || (b >= 'A' && b <= 'F');
+            boolean base64 = letter || digit || b == '+' || b == '/' || b == '-' || b == '_';
+            boolean valueStart = b == '"' || b == '\'' || b == '=' || b == ':';
+            boolean blank = b == ' ' || b == '\t';
+            boolean uppercaseOrDigit = digit || (b >= 'A' && b <= 'Z');
+            CHARACTER_CLASS[b] = (short) ((base64 ? BASE64 : 0) | (hex ? HEX : 0) | (letter ? LETTER : 0) | (digit ? DIGIT : 0)
+                    | (valueStart ? VALUE_START : 0) | (blank ? BLANK : 0) | (uppercaseOrDigit ? UPPERCASE_OR_DIGIT : 0)
+                    | (b == '/' ? SLASH : 0) | (b >= 'a' && b <= 'z' ? LOWERCASE : 0));
+        }
+    }
+
+    static final EntropyDetector DISABLED = new EntropyDetector(false, 16, 24, 4.2, 3.2);
+
+    private final boolean enabled;
+    private final int minLength;
+    private final int window;
+    private final double base64Threshold;
+    private final double hexThreshold;
+    private final double keyIdThreshold;
+    // countLog[c] is c * log2(c), the entropy of n characters is log2(n) - sum(countLog[count]) / n
+    private final double[] countLog;
+
+    EntropyDetector(boolean enabled, int minLength, int window, double base64Threshold, double hexThreshold) {
+        if (minLength < 2 || minLength > window) {
+            throw new IllegalArgumentException("entropy.min.length must be at least 2 and at most entropy.window");
+        }
+        this.enabled = enabled;
+        this.minLength = minLength;
+        this.window = window;
+        this.base64Threshold = base64Threshold;
+        this.hexThreshold = hexThreshold;
+        this.keyIdThreshold = base64Threshold * log2(36) / log2(64);
+        this.countLog = new double[window + 1];
+        for (int count = 1; count <= window; count++) {
+            countLog[count] = count * log2(count);
+        }
+    }
+
+    /**
+     * Settings of entropy.properties through {@link ConfigLoader}.
+     */
+    static EntropyDetector load() {
+        ConfigLoader.loadEntropyConfig();
+        return new EntropyDetector(ConfigLoader.isEntropyEnabled(), ConfigLoader.getEntropyMinLength(), ConfigLoader.getEntropyWindow(),
+                ConfigLoader.getEntropyBase64Threshold(), ConfigLoader.getEntropyHexThreshold());
+    }
+
+    /**
+     * The settings, for the rules version.
+     */
+    @Override
+    public String toString() {
+        return enabled + "/" + minLength + "/" + window + "/" + base64Threshold + "/" + hexThreshold;
+    }
+
+    /**
+     * Findings of content between its position and limit, at most one per line, on the given line
+     * numbers only, all lines when checkedLines is null.
+     */
+    List<Finding> scan(Path filePath, ByteBuffer content, BitSet checkedLines, ScanMetrics.CheckCounter checks) {
+        List<Finding> findings = new ArrayList<>();
+        if (!enabled) {
+            return findings;
+        }
+        int[] counts = new int[128];
+        int limit = content.limit();
+        int lineNumber = 1;
+        int lineStart = content.position();
+        int reportedLine = 0;
+        // Whether a run starting at the current byte is a literal or a value
+        boolean valueStart = false;
+        int i = content.position();
+        while (i < limit) {
+            int b = content.get(i) & 0xFF;
+            int characterClass = CHARACTER_CLASS[b];
+            if ((characterClass & BASE64) == 0) {
+                if ((characterClass & VALUE_START) != 0) {
+                    // The = of a comparison, >=, <=, != or ==, does not start a value
+                    int previous = i > lineStart ? content.get(i - 1) : 0;
+                    valueStart = b != '=' || (previous != '<' && previous != '>' && previous != '!' && previous != '=');
+                } else if ((characterClass & BLANK) == 0) {
+                    valueStart = false;
+                    if (b == '\n' || (b == '\r' && (i + 1 >= limit || content.get(i + 1) != '\n'))) {
+                        lineNumber++;
+                        lineStart = i + 1;
+                    }
+                }
+                i++;
+                continue;
+            }
+
+            int start = i;
+            // The classes of every byte of the run, and of any
+            int every = BASE64 | HEX | LETTER | DIGIT | UPPERCASE_OR_DIGIT;
+            int any = 0;
+            while (i < limit && ((characterClass = CHARACTER_CLASS[content.get(i) & 0xFF]) & BASE64) != 0) {
+                every &= characterClass;
+                any |= characterClass;
+                i++;
+            }
+            boolean candidate = valueStart && (any & (LETTER | DIGIT)) == (LETTER | DIGIT)
+                    && (i - start >= window || (i - start >= minLength && isShortKey(content, start, i)))
+                    && lineNumber != reportedLine && (checkedLines == null || checkedLines.get(lineNumber));
+            valueStart = false;
+            if (!candidate) {
+                continue;
+            }
+
+            double threshold = (every & HEX) != 0 ? hexThreshold
+                    : (every & UPPERCASE_OR_DIGIT) != 0 ? keyIdThreshold : base64Threshold;
+            int width = Math.min(window, i - start);
+            if (width < window) {
+                threshold *= log2(width) / log2(window);
+            }
+            if (checks.count(ScanMetrics.Check.ENTROPY, maxEntropy(content, start, i, width, counts) >= threshold)) {
+                reportedLine = lineNumber;
+                String trimmedLine = decodeLine(content, lineStart, limit);
+                String message = "High entropy string found at line " + lineNumber + " in file " + filePath.toString();
+                findings.add(Finding.of(SensitiveInfoScanner.RULE_HIGH_ENTROPY_STRING, message, filePath, lineNumber, trimmedLine));
+            }
+        }
+        return findings;
+    }
+
+    // Whether a run shorter than the window looks like a key rather than a name, a number or a path. Names
+    // such as PBEWithMD5AndTripleDES keep their lowercase letters together in words, random strings leave
+    // some of them between other characters. Runs of uppercase letters and digits are judged by entropy.
+    private static boolean isShortKey(ByteBuffer content, int start, int end) {
+        if (end < content.limit() && content.get(end) == '(') {
+            // A method call, e.g. after = in code
+            return false;
+        }
+        int letters = 0;
+        int lowercase = 0;
+        int loneLowercase = 0;
+        boolean previousLowercase = false;
+        for (int i = start; i < end; i++) {
+            int characterClass = CHARACTER_CLASS[content.get(i) & 0xFF];
+            if ((characterClass & SLASH) != 0) {
+                // A path or a cipher transformation
+                return false;
+            }
+            boolean isLowercase = (characterClass & LOWERCASE) != 0;
+            if (isLowercase && !previousLowercase
+                    && (i + 1 == end || (CHARACTER_CLASS[content.get(i + 1) & 0xFF] & LOWERCASE) == 0)) {
+                loneLowercase++;
+            }
+            letters += (characterClass & LETTER) != 0 ? 1 : 0;
+            lowercase += isLowercase ? 1 : 0;
+            previousLowercase = isLowercase;
+        }
+        // A single letter is the type of a number, 3989172637106345L
+        return letters >= 2 && (lowercase == 0 || loneLowercase > 0);
+    }
+
+    // Highest entropy of the windows of width characters of the run, counts is left all zero again
+    private double maxEntropy(ByteBuffer content, int start, int end, int width, int[] counts) {
+        double sum = 0;
+        for (int i = start; i < start + width; i++) {
+            int c = content.get(i);
+            sum += countLog[counts[c] + 1] - countLog[counts[c]];
+            counts[c]++;
+        }
+        double min = sum;
+        for (int i = start + width; i < end; i++) {
+            int removed = content.get(i - width);
+            sum += countLog[counts[removed] - 1] - countLog[counts[removed]];
+            counts[removed]--;
+            int added = content.get(i);
+            sum += countLog[counts[added] + 1] - countLog[counts[added]];
+            counts[added]++;
+            min = Math.min(min, sum);
+        }
+        for (int i = end - width; i < end; i++) {
+            counts[content.get(i)] = 0;
+        }
+        return log2(width) - min / width;
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    // The line around a hit, trimmed like String.trim
+    private static String decodeLine(ByteBuffer content, int from, int limit) {
+        int to = from;
+        while (to < limit && content.get(to) != '\n' && content.get(to) != '\r') {
+            to++;
+        }
+        while (from < to && (content.get(from) & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (content.get(to - 1) & 0xFF) <= ' ') {
+            to--;
+        }
+        byte[] line = new byte[to - from];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = content.get(from + i);
+        }
+        return new String(line, StandardCharsets.UTF_8);
+    }
+
+}
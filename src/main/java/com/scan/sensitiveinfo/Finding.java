@@ -0,0 +1,123 @@
+package com.scan.sensitiveinfo;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A single report entry: the rule that fired, where it fired and a fingerprint that identifies the
+ * finding across runs. The fingerprint covers the rule, the path of the file relative to the scanned
+ * root and the offending code, not the line number, so it survives unrelated edits above the finding
+ * and a checkout in another directory. Identical code on several lines of a file is told apart by its
+ * occurrence in the file.
+ *
+ * A finding is created with a fingerprint of its rule and code only, {@link #locate} adds the file
+ * when the findings of the file are handed to the report.
+ */
+public final class Finding {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final String rule;
+    private final String message;
+    private final String file;
+    private final int line;
+    private final String fingerprint;
+
+    public Finding(String rule, String message, String file, int line, String fingerprint) {
+        this.rule = rule;
+        this.message = message;
+        this.file = file;
+        this.line = line;
+        this.fingerprint = fingerprint;
+    }
+
+    public static Finding of(String rule, String message, Path filePath, int line, String snippet) {
+        return new Finding(rule, message, filePath.toString(), line, fingerprint(rule, snippet));
+    }
+
+    /**
+     * The findings of one scanned file, or archive, with the fingerprints of the report. The files of the
+     * findings are taken relative to root, and the same code found again in a file counts its occurrence.
+     */
+    static List<Finding> locate(List<Finding> findings, Path root) {
+        if (findings.isEmpty()) {
+            return findings;
+        }
+        String prefix = root.toString().isEmpty() || root.toString().endsWith(File.separator)
+                ? root.toString() : root + File.separator;
+        List<Finding> located = new ArrayList<>(findings.size());
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (Finding finding : findings) {
+            String file = finding.file.startsWith(prefix) ? finding.file.substring(prefix.length()) : finding.file;
+            file = file.replace(File.separatorChar, '/');
+            int occurrence = occurrences.merge(file + '\0' + finding.fingerprint, 1, Integer::sum) - 1;
+            located.add(new Finding(finding.rule, finding.message, finding.file, finding.line,
+                    hash(finding.fingerprint, file, Integer.toString(occurrence))));
+        }
+        return located;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * 1-based line of the finding, -1 when it is not known.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private static String fingerprint(String rule, String snippet) {
+        // Whitespace changes do not make a new finding
+        return hash(rule, WHITESPACE.matcher(snippet.trim()).replaceAll(" "));
+    }
+
+    private static String hash(String... values) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                digest.update((byte) 0);
+            }
+            digest.update(values[i].getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] hash = digest.digest();
+
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[2 * i] = HEX[(hash[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
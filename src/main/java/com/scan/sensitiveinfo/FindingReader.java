@@ -0,0 +1,193 @@
+package com.scan.sensitiveinfo;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads back the findings of a jsonl or partial report, one at a time, and the summary at its end.
+ * Only the flat records these reports are written with are understood, not JSON in general.
+ */
+class FindingReader implements Closeable {
+
+    private static final String SUMMARY = "{\"summary\":";
+
+    private final Path file;
+    private final BufferedReader reader;
+    private int lineNumber;
+    private long sequence = -1;
+    private Map<String, String> summary;
+
+    FindingReader(Path file) throws IOException {
+        this.file = file;
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The next finding of the report, null at its end.
+     */
+    Finding next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith(SUMMARY)) {
+                summary = parse(line.substring(SUMMARY.length(), line.lastIndexOf('}')));
+                continue;
+            }
+            Map<String, String> record = parse(line);
+            String rule = record.get("rule");
+            String message = record.get("message");
+            String path = record.get("file");
+            String fingerprint = record.get("fingerprint");
+            String findingLine = record.get("line");
+            if (rule == null || message == null || path == null || fingerprint == null || findingLine == null) {
+                throw error("Not a finding");
+            }
+            try {
+                sequence = record.containsKey("sequence") ? Long.parseLong(record.get("sequence")) : -1;
+                return new Finding(rule, message, path, Integer.parseInt(findingLine), fingerprint);
+            } catch (NumberFormatException e) {
+                throw error("Bad number");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Position in the report of the file of the last finding read, -1 when the report has no positions.
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * The summary of the report, null until the reader reached it or when there is none.
+     */
+    Map<String, String> getSummary() {
+        return summary;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // One object of string and number values
+    private Map<String, String> parse(String line) throws IOException {
+        Map<String, String> record = new HashMap<>();
+        int[] position = {skipSpaces(line, 0)};
+        expect(line, position, '{');
+        while (true) {
+            String key = readString(line, position);
+            expect(line, position, ':');
+            String value = line.startsWith("\"", position[0]) ? readString(line, position) : readNumber(line, position);
+            record.put(key, value);
+            if (peek(line, position) == '}') {
+                return record;
+            }
+            expect(line, position, ',');
+        }
+    }
+
+    private String readString(String line, int[] position) throws IOException {
+        expect(line, position, '"');
+        StringBuilder value = new StringBuilder();
+        for (int i = position[0]; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                position[0] = i + 1;
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (++i == line.length()) {
+                break;
+            }
+            char escaped = line.charAt(i);
+            switch (escaped) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 >= line.length()) {
+                        throw error("Truncated escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Bad escape");
+                    }
+                    i += 4;
+                    break;
+                default:
+                    value.append(escaped);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private String readNumber(String line, int[] position) throws IOException {
+        int start = position[0];
+        int end = start;
+        while (end < line.length() && (Character.isDigit(line.charAt(end)) || line.charAt(end) == '-')) {
+            end++;
+        }
+        if (end == start) {
+            throw error("Expected a string or a number");
+        }
+        position[0] = end;
+        return line.substring(start, end);
+    }
+
+    private char peek(String line, int[] position) throws IOException {
+        position[0] = skipSpaces(line, position[0]);
+        if (position[0] >= line.length()) {
+            throw error("Unexpected end of line");
+        }
+        return line.charAt(position[0]);
+    }
+
+    private void expect(String line, int[] position, char expected) throws IOException {
+        if (peek(line, position) != expected) {
+            throw error("Expected " + expected);
+        }
+        position[0] = skipSpaces(line, position[0] + 1);
+    }
+
+    private static int skipSpaces(String line, int position) {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private IOException error(String problem) {
+        return new IOException(problem + " in " + file + " line " + lineNumber);
+    }
+}
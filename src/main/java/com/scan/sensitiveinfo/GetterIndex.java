@@ -0,0 +1,480 @@
+package com.scan.sensitiveinfo;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Project-wide index of the getters returning sensitive fields, so that log.info(user.getPassword())
+ * is reported in any class that uses User, not only in User itself.
+ *
+ * The index is built in a first pass over the Java files, before they are scanned. Files with a
+ * sensitive identifier are parsed and a summary of each is kept, which the scan then uses instead of
+ * parsing the file again. A method returning the result of a sensitive getter of its own class or of
+ * the declared type of a field, such as "return account.getSecret();", is a sensitive getter as well.
+ * The files calling a getter found so far are parsed in further rounds until no new getter turns up.
+ *
+ * Entries are keyed by path and content hash. A saved index lets the next run, or a diff scan, reuse
+ * the entries of unchanged files without reading or parsing them.
+ */
+public class GetterIndex {
+
+    /**
+     * Where the index reads the files from.
+     */
+    public interface ContentSource {
+        byte[] read(Path file) throws IOException;
+
+        /**
+         * An id that changes with the content and is known without reading it, like a blob id, or null.
+         */
+        String getId(Path file);
+    }
+
+    /**
+     * Reads the files from the disk, they have no id.
+     */
+    public static final ContentSource FILE_SYSTEM = new ContentSource() {
+        @Override
+        public byte[] read(Path file) throws IOException {
+            return Files.readAllBytes(file);
+        }
+
+        @Override
+        public String getId(Path file) {
+            return null;
+        }
+    };
+
+    private static final int MAGIC = 0x53494749;
+    private static final int FORMAT_VERSION = 2;
+
+    private static class Entry {
+        private final String id;
+        private final byte[] contentHash;
+        // Null when the file was not parsed, it declares no sensitive field and calls no sensitive getter
+        private final JavaSourceAnalyzer.Summary summary;
+
+        Entry(String id, byte[] contentHash, JavaSourceAnalyzer.Summary summary) {
+            this.id = id;
+            this.contentHash = contentHash;
+            this.summary = summary;
+        }
+    }
+
+    private final String rulesVersion;
+    private final ConcurrentMap<String, Entry> entries;
+    // Sensitive getters by qualified class name, mapped to the field they return
+    private final Map<String, Map<String, String>> getters = new TreeMap<>();
+    private KeywordMatcher classNames = new KeywordMatcher(Collections.emptyList(), false);
+    private final List<Map<String, String>> gettersByClassName = new ArrayList<>();
+    private String version = "";
+    // Set when the thread building the index is interrupted, the remaining files are skipped
+    private volatile boolean cancelled;
+
+    private GetterIndex(String rulesVersion, Map<String, Entry> entries) {
+        this.rulesVersion = rulesVersion;
+        this.entries = new ConcurrentHashMap<>(entries);
+    }
+
+    /**
+     * Indexes the Java files among files. Entries of previous, which may be null, are reused for the
+     * files whose content did not change.
+     */
+    public static GetterIndex build(List<Path> files, ContentSource source, ScanRules rules, int threads,
+                                    GetterIndex previous, ScanStatistics statistics) throws Exception {
+        GetterIndex index = new GetterIndex(rules.getVersion(), Collections.emptyMap());
+        Map<String, Entry> reusable = previous != null && previous.rulesVersion.equals(rules.getVersion())
+                ? previous.entries : Collections.emptyMap();
+        List<Path> javaFiles = files.stream()
+                .filter(file -> file.getFileName().toString().endsWith(".java"))
+                .collect(Collectors.toList());
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            index.await(pool.submit(() -> javaFiles.parallelStream()
+                    .forEach(file -> index.add(file, source, rules, reusable.get(file.toString()), statistics))));
+
+            // Every round parses the files that call a getter the round before found
+            Set<String> searched = new HashSet<>();
+            Set<String> found = index.resolve();
+            while (true) {
+                Set<String> names = new HashSet<>(found);
+                names.removeAll(searched);
+                if (names.isEmpty()) {
+                    break;
+                }
+                searched.addAll(names);
+                KeywordMatcher calls = new KeywordMatcher(names, false);
+                List<Path> unparsed = javaFiles.stream()
+                        .filter(file -> index.entries.containsKey(file.toString()) && index.entries.get(file.toString()).summary == null)
+                        .collect(Collectors.toList());
+                index.await(pool.submit(() -> unparsed.parallelStream()
+                        .forEach(file -> index.addCallers(file, source, rules, calls, statistics))));
+                found = index.resolve();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        index.compile();
+        return index;
+    }
+
+    private void await(Future<?> task) throws Exception {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            cancelled = true;
+            throw e;
+        }
+    }
+
+    private void add(Path file, ContentSource source, ScanRules rules, Entry previous, ScanStatistics statistics) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            String id = source.getId(file);
+            if (previous != null && id != null && id.equals(previous.id)) {
+                entries.put(file.toString(), previous);
+                return;
+            }
+            ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+            byte[] content = source.read(file);
+            timer.record(ScanMetrics.Phase.READ);
+            byte[] contentHash = ScanCache.hash(content);
+            if (previous != null && Arrays.equals(previous.contentHash, contentHash)) {
+                entries.put(file.toString(), new Entry(id, contentHash, previous.summary));
+                return;
+            }
+            JavaSourceAnalyzer.Summary summary = null;
+            if (SensitiveInfoScanner.findCandidates(content, rules.getSensitiveMatcher()) == SensitiveInfoScanner.IDENTIFIER_HITS) {
+                summary = summarize(file, content, rules, statistics);
+            }
+            entries.put(file.toString(), new Entry(id, contentHash, summary));
+        } catch (IOException e) {
+            // The scan reports the file again, it is left out of the index
+        }
+    }
+
+    private void addCallers(Path file, ContentSource source, ScanRules rules, KeywordMatcher calls, ScanStatistics statistics) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            byte[] content = source.read(file);
+            if (calls.containsAny(content, 0, content.length)) {
+                Entry entry = entries.get(file.toString());
+                entries.put(file.toString(), new Entry(entry.id, entry.contentHash, summarize(file, content, rules, statistics)));
+            }
+        } catch (IOException e) {
+            // Not parseable, the file delegates to no getter
+        }
+    }
+
+    private static JavaSourceAnalyzer.Summary summarize(Path file, byte[] content, ScanRules rules,
+                                                        ScanStatistics statistics) throws IOException {
+        ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+        CompilationUnit cu = JavaSourceAnalyzer.parse(file, new String(content, StandardCharsets.UTF_8));
+        timer.record(ScanMetrics.Phase.PARSE);
+        JavaSourceAnalyzer.Summary summary = JavaSourceAnalyzer.analyze(cu, rules).summarize();
+        timer.record(ScanMetrics.Phase.ANALYZE);
+        return summary;
+    }
+
+    // Collects the getters of every class and follows delegations until nothing changes, returns the getter names
+    private Set<String> resolve() {
+        getters.clear();
+        // Sorted, so that a type name matching several classes always resolves to the same one
+        List<JavaSourceAnalyzer.Summary> summaries = new ArrayList<>();
+        new TreeMap<>(entries).values().forEach(entry -> {
+            if (entry.summary != null && entry.summary.getTypeName() != null) {
+                summaries.add(entry.summary);
+            }
+        });
+        Map<String, List<String>> classesBySimpleName = new HashMap<>();
+        for (JavaSourceAnalyzer.Summary summary : summaries) {
+            classesBySimpleName.computeIfAbsent(simpleName(summary.getTypeName()), name -> new ArrayList<>()).add(summary.getTypeName());
+            if (!summary.getAccessors().isEmpty()) {
+                getters.computeIfAbsent(summary.getTypeName(), name -> new TreeMap<>()).putAll(summary.getAccessors());
+            }
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (JavaSourceAnalyzer.Summary summary : summaries) {
+                Map<String, String> classGetters = getters.get(summary.getTypeName());
+                for (Map.Entry<String, Set<String>> delegation : summary.getDelegations().entrySet()) {
+                    String method = delegation.getKey();
+                    if (classGetters != null && classGetters.containsKey(method)) {
+                        continue;
+                    }
+                    for (String call : delegation.getValue()) {
+                        int separator = call.lastIndexOf('#');
+                        String field = getterField(call.substring(0, separator), call.substring(separator + 1),
+                                summary.getTypeName(), classesBySimpleName);
+                        if (field != null) {
+                            classGetters = getters.computeIfAbsent(summary.getTypeName(), name -> new TreeMap<>());
+                            classGetters.put(method, field);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        Set<String> names = new HashSet<>();
+        getters.values().forEach(classGetters -> names.addAll(classGetters.keySet()));
+        return names;
+    }
+
+    /**
+     * The field the getter of the receiver type returns, null when it is no sensitive getter. A type the
+     * calling file did not import is looked up in the package of the caller first, then by its simple name.
+     */
+    private String getterField(String receiver, String getter, String caller, Map<String, List<String>> classesBySimpleName) {
+        List<String> classes;
+        if (receiver.indexOf('.') >= 0) {
+            classes = Collections.singletonList(receiver);
+        } else {
+            String samePackage = caller.substring(0, caller.lastIndexOf('.') + 1) + receiver;
+            List<String> named = classesBySimpleName.getOrDefault(receiver, Collections.emptyList());
+            classes = named.contains(samePackage) ? Collections.singletonList(samePackage) : named;
+        }
+        for (String className : classes) {
+            Map<String, String> classGetters = getters.get(className);
+            if (classGetters != null && classGetters.containsKey(getter)) {
+                return classGetters.get(getter);
+            }
+        }
+        return null;
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    // Prepares the lookup of the classes a file names and the version of the resolved getters
+    private void compile() {
+        Map<String, Map<String, String>> bySimpleName = new TreeMap<>();
+        getters.forEach((className, classGetters) -> bySimpleName
+                .computeIfAbsent(simpleName(className), name -> new TreeMap<>())
+                .putAll(classGetters));
+        classNames = new KeywordMatcher(bySimpleName.keySet(), false);
+        gettersByClassName.clear();
+        gettersByClassName.addAll(bySimpleName.values());
+        version = String.format("%032x", new BigInteger(1, ScanCache.hash(getters.toString().getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * Sensitive getters by qualified class name, mapped to the field they return.
+     */
+    public Map<String, Map<String, String>> getGetters() {
+        return getters;
+    }
+
+    public int getGetterCount() {
+        int count = 0;
+        for (Map<String, String> classGetters : getters.values()) {
+            count += classGetters.size();
+        }
+        return count;
+    }
+
+    /**
+     * Changes whenever a sensitive getter is added or removed. Cached findings depend on it, as a file
+     * can leak through a getter declared in another file.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * The sensitive getters of the indexed classes whose simple name occurs as an identifier in content.
+     * Calls are not resolved to types, naming the class is what ties a call to its getters, and a line
+     * only uses one of them when it calls it, see {@link #callsAny}.
+     */
+    public Map<String, String> getReferencedGetters(byte[] content) {
+        Map<String, String> referenced = new HashMap<>();
+        classNames.findAll(content, 0, content.length, (className, start, end) -> {
+            if (!SensitiveInfoScanner.isIdentifierByte(content, start - 1) && !SensitiveInfoScanner.isIdentifierByte(content, end)) {
+                gettersByClassName.get(className).forEach(referenced::putIfAbsent);
+            }
+        });
+        return referenced;
+    }
+
+    /**
+     * Whether line calls one of the getters: the name stands alone and is followed by "(", so that a
+     * getter named next is not found in hasNext() or nextElement(), or in a comment about the next step.
+     */
+    static boolean callsAny(KeywordMatcher getters, String line) {
+        boolean[] called = {false};
+        getters.findAll(line, (getter, start, end) -> {
+            if (called[0] || (start > 0 && Character.isJavaIdentifierPart(line.charAt(start - 1)))) {
+                return;
+            }
+            int next = end;
+            while (next < line.length() && Character.isWhitespace(line.charAt(next))) {
+                next++;
+            }
+            called[0] = next < line.length() && line.charAt(next) == '(';
+        });
+        return called[0];
+    }
+
+    /**
+     * The summary of a file taken when it had this content, null when it has to be parsed.
+     */
+    public JavaSourceAnalyzer.Summary lookup(Path file, byte[] content) {
+        Entry entry = entries.get(file.toString());
+        if (entry == null || entry.summary == null || !Arrays.equals(entry.contentHash, ScanCache.hash(content))) {
+            return null;
+        }
+        return entry.summary;
+    }
+
+    /**
+     * Loads a saved index, a missing, unreadable or outdated file gives an empty one.
+     */
+    public static GetterIndex load(Path file, ScanRules rules) {
+        Map<String, Entry> saved = new HashMap<>();
+        if (!Files.isRegularFile(file)) {
+            return new GetterIndex(rules.getVersion(), saved);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !rules.getVersion().equals(ScanCache.readString(in))) {
+                return new GetterIndex(rules.getVersion(), saved);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = ScanCache.readString(in);
+                String id = ScanCache.readString(in);
+                byte[] contentHash = new byte[ScanCache.HASH_LENGTH];
+                in.readFully(contentHash);
+                saved.put(path, new Entry(id.isEmpty() ? null : id, contentHash, in.readBoolean() ? readSummary(in) : null));
+            }
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable getter index " + file + ": " + e.getMessage());
+            saved.clear();
+        }
+        return new GetterIndex(rules.getVersion(), saved);
+    }
+
+    /**
+     * Writes the index, replacing file atomically.
+     */
+    public void save(Path file) throws IOException {
+        Path target = file.toAbsolutePath().normalize();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                ScanCache.writeString(out, rulesVersion);
+                Map<String, Entry> sorted = new TreeMap<>(entries);
+                out.writeInt(sorted.size());
+                for (Map.Entry<String, Entry> indexed : sorted.entrySet()) {
+                    Entry entry = indexed.getValue();
+                    ScanCache.writeString(out, indexed.getKey());
+                    ScanCache.writeString(out, entry.id == null ? "" : entry.id);
+                    out.write(entry.contentHash);
+                    out.writeBoolean(entry.summary != null);
+                    if (entry.summary != null) {
+                        writeSummary(out, entry.summary);
+                    }
+                }
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeSummary(DataOutputStream out, JavaSourceAnalyzer.Summary summary) throws IOException {
+        ScanCache.writeString(out, summary.getTypeName() == null ? "" : summary.getTypeName());
+        out.writeInt(summary.getSensitiveFields().size());
+        for (String field : summary.getSensitiveFields()) {
+            ScanCache.writeString(out, field);
+        }
+        writeMap(out, summary.getSensitiveGetters());
+        writeMap(out, summary.getAccessors());
+        out.writeInt(summary.getDelegations().size());
+        for (Map.Entry<String, Set<String>> delegation : summary.getDelegations().entrySet()) {
+            ScanCache.writeString(out, delegation.getKey());
+            out.writeInt(delegation.getValue().size());
+            for (String call : delegation.getValue()) {
+                ScanCache.writeString(out, call);
+            }
+        }
+        out.writeInt(summary.getLogStatements().size());
+        for (JavaSourceAnalyzer.LogStatement logStatement : summary.getLogStatements()) {
+            out.writeInt(logStatement.getLine());
+            ScanCache.writeString(out, logStatement.getText());
+        }
+    }
+
+    private static JavaSourceAnalyzer.Summary readSummary(DataInputStream in) throws IOException {
+        String typeName = ScanCache.readString(in);
+        List<String> sensitiveFields = new ArrayList<>();
+        for (int i = readCount(in); i > 0; i--) {
+            sensitiveFields.add(ScanCache.readString(in));
+        }
+        Map<String, String> sensitiveGetters = readMap(in);
+        Map<String, String> accessors = readMap(in);
+        Map<String, Set<String>> delegations = new HashMap<>();
+        for (int i = readCount(in); i > 0; i--) {
+            Set<String> calls = new TreeSet<>();
+            delegations.put(ScanCache.readString(in), calls);
+            for (int call = readCount(in); call > 0; call--) {
+                calls.add(ScanCache.readString(in));
+            }
+        }
+        List<JavaSourceAnalyzer.LogStatement> logStatements = new ArrayList<>();
+        for (int i = readCount(in); i > 0; i--) {
+            int line = in.readInt();
+            logStatements.add(new JavaSourceAnalyzer.LogStatement(line, ScanCache.readString(in)));
+        }
+        return new JavaSourceAnalyzer.Summary(typeName.isEmpty() ? null : typeName, sensitiveFields, sensitiveGetters,
+                accessors, delegations, logStatements);
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            ScanCache.writeString(out, entry.getKey());
+            ScanCache.writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+        Map<String, String> map = new HashMap<>();
+        for (int i = readCount(in); i > 0; i--) {
+            map.put(ScanCache.readString(in), ScanCache.readString(in));
+        }
+        return map;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt count " + count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,235 @@
+package com.scan.sensitiveinfo;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryBuilder;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scans only the lines a change added, for pull request gates, pre-commit hooks and for searching the history.
+ *
+ * The changed files and their added lines come from a diff of two trees. Only changed files are read
+ * and parsed, and findings are reported only on added lines. Java files are still parsed as a whole,
+ * so a new log line that prints a field declared elsewhere in the class is reported. With a saved
+ * getter index, a new log line calling a sensitive getter of another class is reported as well; only
+ * the blobs that changed since the index was saved are parsed to bring it up to date.
+ */
+public class GitDiffScanner {
+
+    /**
+     * Scans the lines head added since it forked from base, like a pull request of head into base.
+     */
+    public static ScanStatistics scanRepository(String location, String base, String head, String outputFile,
+                                                ScanOptions options) throws Exception {
+        ScanRules rules = ScanRules.load();
+        ScanStatistics statistics;
+        try (Repository repository = GitTreeScanner.openRepository(location);
+             ReportGenerator report = ReportGenerator.open(outputFile, options.getFormat())) {
+            statistics = scanDiff(repository, base, head, Paths.get(location), rules, options.getThreads(), report,
+                    options.getIndexFile());
+            report.setStatistics(statistics);
+        }
+        statistics.getMetrics().writeNextTo(outputFile);
+        return statistics;
+    }
+
+    /**
+     * Scans the lines added by each of the last commits reachable from head, newest first.
+     */
+    public static ScanStatistics scanHistory(String location, String head, int commits, String outputFile,
+                                             ScanOptions options) throws Exception {
+        ScanRules rules = ScanRules.load();
+        ScanStatistics statistics;
+        try (Repository repository = GitTreeScanner.openRepository(location);
+             ReportGenerator report = ReportGenerator.open(outputFile, options.getFormat())) {
+            statistics = scanHistory(repository, head, commits, Paths.get(location), rules, options.getThreads(), report);
+            report.setStatistics(statistics);
+        }
+        statistics.getMetrics().writeNextTo(outputFile);
+        return statistics;
+    }
+
+    /**
+     * Scans the lines staged in the index of the repository at location since HEAD, the lines the next commit
+     * adds. Only the staged blobs are read, not the working tree. Within a Git hook the repository and the index
+     * are the ones Git names in GIT_DIR and GIT_INDEX_FILE. paths limits the scan to those files, relative to
+     * the top of the working tree, when it is not empty.
+     */
+    public static ScanStatistics scanStaged(String location, List<String> paths, ScanRules rules, int threads,
+                                            ReportGenerator report) throws Exception {
+        ScanStatistics statistics = new ScanStatistics();
+        Path root = Paths.get(location).normalize();
+        RepositoryBuilder builder = new RepositoryBuilder().readEnvironment().findGitDir(new File(location));
+        if (builder.getGitDir() == null) {
+            throw new RepositoryNotFoundException(location);
+        }
+        try (Repository repository = builder.setMustExist(true).build();
+             ObjectReader reader = repository.newObjectReader();
+             DiffFormatter diff = newDiffFormatter(repository);
+             ScanWorkers workers = new ScanWorkers(root, threads, report, statistics.getMetrics())) {
+            if (!paths.isEmpty()) {
+                diff.setPathFilter(PathFilterGroup.createFromStrings(paths));
+            }
+            // Nothing is committed yet on an unborn branch, everything staged is new
+            ObjectId headTree = repository.resolve(Constants.HEAD + "^{tree}");
+            AbstractTreeIterator head = headTree == null ? new EmptyTreeIterator() : new CanonicalTreeParser(null, reader, headTree);
+
+            ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+            List<DiffEntry> entries = diff.scan(head, new DirCacheIterator(repository.readDirCache()));
+            timer.record(ScanMetrics.Phase.WALK);
+            scanEntries(repository, diff, entries, root, rules, statistics, workers, null);
+            workers.awaitAll();
+        }
+        return statistics;
+    }
+
+    public static ScanStatistics scanDiff(Repository repository, String base, String head, Path root, ScanRules rules,
+                                          int threads, ReportGenerator report) throws Exception {
+        return scanDiff(repository, base, head, root, rules, threads, report, null);
+    }
+
+    /**
+     * Same as above, the changed files are also checked against the getters of the whole head tree when
+     * indexFile is set. The index is read from indexFile, updated and written back.
+     */
+    public static ScanStatistics scanDiff(Repository repository, String base, String head, Path root, ScanRules rules,
+                                          int threads, ReportGenerator report, Path indexFile) throws Exception {
+        ScanStatistics statistics = new ScanStatistics();
+        try (RevWalk revWalk = new RevWalk(repository);
+             DiffFormatter diff = newDiffFormatter(repository);
+             ScanWorkers workers = new ScanWorkers(root, threads, report, statistics.getMetrics())) {
+            RevCommit headCommit = revWalk.parseCommit(resolve(repository, head));
+            RevCommit baseCommit = revWalk.parseCommit(resolve(repository, base));
+
+            // Diff against the merge base, changes made on base since head forked are not part of the change
+            revWalk.setRevFilter(RevFilter.MERGE_BASE);
+            revWalk.markStart(headCommit);
+            revWalk.markStart(baseCommit);
+            RevCommit mergeBase = revWalk.next();
+            if (mergeBase == null) {
+                throw new IllegalArgumentException(base + " and " + head + " have no common history");
+            }
+
+            GetterIndex index = null;
+            if (indexFile != null) {
+                Map<Path, ObjectId> files = GitTreeScanner.listFiles(repository, headCommit.getTree(), root, rules, statistics);
+                index = GitTreeScanner.buildIndex(repository, files, rules, threads, indexFile, statistics);
+            }
+            scanChanges(repository, diff, mergeBase.getTree(), headCommit.getTree(), root, rules, statistics, workers, index);
+            workers.awaitAll();
+        }
+        return statistics;
+    }
+
+    /**
+     * Each commit is compared with its first parent, a root commit adds all its lines. Merge commits are
+     * skipped, their changes are scanned with the commits that made them. The files of a commit are
+     * labelled root/abbreviated-id/path in the findings.
+     */
+    public static ScanStatistics scanHistory(Repository repository, String head, int commits, Path root,
+                                             ScanRules rules, int threads, ReportGenerator report) throws Exception {
+        ScanStatistics statistics = new ScanStatistics();
+        try (RevWalk revWalk = new RevWalk(repository);
+             DiffFormatter diff = newDiffFormatter(repository);
+             ScanWorkers workers = new ScanWorkers(root, threads, report, statistics.getMetrics())) {
+            revWalk.markStart(revWalk.parseCommit(resolve(repository, head)));
+            int walked = 0;
+            for (RevCommit commit : revWalk) {
+                if (walked++ >= commits) {
+                    break;
+                }
+                if (commit.getParentCount() > 1) {
+                    continue;
+                }
+                RevTree parentTree = commit.getParentCount() == 0 ? null : revWalk.parseCommit(commit.getParent(0)).getTree();
+                Path commitRoot = root.resolve(commit.abbreviate(10).name());
+                scanChanges(repository, diff, parentTree, commit.getTree(), commitRoot, rules, statistics, workers, null);
+            }
+            workers.awaitAll();
+        }
+        return statistics;
+    }
+
+    // oldTree is null when every file of newTree is new
+    private static void scanChanges(Repository repository, DiffFormatter diff, RevTree oldTree, RevTree newTree, Path root,
+                                    ScanRules rules, ScanStatistics statistics, ScanWorkers workers,
+                                    GetterIndex index) throws Exception {
+        // Diffing the trees and the files is the walk of this mode
+        ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+        List<DiffEntry> entries = diff.scan(oldTree, newTree);
+        timer.record(ScanMetrics.Phase.WALK);
+        scanEntries(repository, diff, entries, root, rules, statistics, workers, index);
+    }
+
+    private static void scanEntries(Repository repository, DiffFormatter diff, List<DiffEntry> entries, Path root,
+                                    ScanRules rules, ScanStatistics statistics, ScanWorkers workers,
+                                    GetterIndex index) throws Exception {
+        for (DiffEntry entry : entries) {
+            if (entry.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                continue;
+            }
+            Path path = root.resolve(entry.getNewPath());
+            FileMode mode = entry.getNewMode();
+            if ((mode != FileMode.REGULAR_FILE && mode != FileMode.EXECUTABLE_FILE)
+                    || rules.isIgnoredPath(path) || !rules.isSupportedFileType(path)) {
+                continue;
+            }
+            ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+            BitSet addedLines = addedLines(diff, entry);
+            timer.record(ScanMetrics.Phase.WALK);
+            if (addedLines.isEmpty()) {
+                continue;
+            }
+            ObjectId blobId = entry.getNewId().toObjectId();
+            workers.submit(path, () -> GitTreeScanner.scanBlob(repository, blobId, path, rules, statistics, addedLines, index));
+        }
+    }
+
+    // Line numbers, counted from 1, of the lines the change added to the new file
+    private static BitSet addedLines(DiffFormatter diff, DiffEntry entry) throws Exception {
+        BitSet lines = new BitSet();
+        for (Edit edit : diff.toFileHeader(entry).toEditList()) {
+            lines.set(edit.getBeginB() + 1, edit.getEndB() + 1);
+        }
+        return lines;
+    }
+
+    private static DiffFormatter newDiffFormatter(Repository repository) {
+        DiffFormatter diff = new DiffFormatter(DisabledOutputStream.INSTANCE);
+        diff.setRepository(repository);
+        // A moved file is not new code, only the lines changed while moving it are scanned
+        diff.setDetectRenames(true);
+        return diff;
+    }
+
+    private static ObjectId resolve(Repository repository, String ref) throws Exception {
+        ObjectId commitId = repository.resolve(ref + "^{commit}");
+        if (commitId == null) {
+            throw new IllegalArgumentException("Unknown revision " + ref);
+        }
+        return commitId;
+    }
+}
@@ -0,0 +1,221 @@
+package com.scan.sensitiveinfo;
+
+import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.Transport;
+import org.eclipse.jgit.transport.TransportBundleStream;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.FS;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Scans a commit straight from the Git object database, without checking out a working tree.
+ *
+ * The repository can be bare or not, or a bundle file which is unpacked into memory. The tree of the
+ * commit is walked with the ignore-path and file type filters of the rules, ignored directories are
+ * not entered at all. Blobs are read through an ObjectReader and handed to the scanner as bytes,
+ * a blob found at several paths is scanned once and reported under the first of them.
+ */
+public class GitTreeScanner {
+
+    private static final String BUNDLE_EXTENSION = ".bundle";
+
+    /**
+     * Scans the commit ref points to in the repository at location and writes the report to outputFile.
+     */
+    public static ScanStatistics scanRepository(String location, String ref, String outputFile, ScanOptions options) throws Exception {
+        ScanRules rules = ScanRules.load();
+        ScanStatistics statistics;
+        try (Repository repository = openRepository(location);
+             ReportGenerator report = ReportGenerator.open(outputFile, options.getFormat())) {
+            statistics = scanTree(repository, ref, Paths.get(location), rules, options.getThreads(), report,
+                    options.getIndexFile(), options.getShard());
+            report.setStatistics(statistics);
+        }
+        statistics.getMetrics().writeNextTo(outputFile);
+        return statistics;
+    }
+
+    /**
+     * Opens a bare or non-bare repository, or loads a bundle file into an in-memory repository.
+     */
+    public static Repository openRepository(String location) throws Exception {
+        File file = new File(location);
+        if (file.isFile() && location.endsWith(BUNDLE_EXTENSION)) {
+            return openBundle(file);
+        }
+        File gitDir = RepositoryCache.FileKey.resolve(file, FS.DETECTED);
+        if (gitDir == null) {
+            throw new RepositoryNotFoundException(file);
+        }
+        return new RepositoryBuilder().setGitDir(gitDir).setMustExist(true).build();
+    }
+
+    private static Repository openBundle(File bundle) throws Exception {
+        InMemoryRepository repository = new InMemoryRepository(new DfsRepositoryDescription(bundle.getName()));
+        try (InputStream in = new BufferedInputStream(new FileInputStream(bundle));
+             Transport transport = new TransportBundleStream(repository, new URIish(bundle.getAbsolutePath()), in)) {
+            FetchResult result = transport.fetch(NullProgressMonitor.INSTANCE,
+                    Collections.singletonList(new RefSpec("+refs/*:refs/*")));
+            Ref head = result.getAdvertisedRef(Constants.HEAD);
+            if (head != null && head.getObjectId() != null) {
+                RefUpdate update = repository.updateRef(Constants.HEAD, true);
+                update.setNewObjectId(head.getObjectId());
+                update.forceUpdate();
+            }
+        } catch (Exception e) {
+            repository.close();
+            throw e;
+        }
+        return repository;
+    }
+
+    /**
+     * Walks the tree of the commit ref points to and scans its blobs on a pool of worker threads.
+     * Files are labelled root/path in the findings and reported in tree order.
+     */
+    public static ScanStatistics scanTree(Repository repository, String ref, Path root, ScanRules rules, int threads,
+                                          ReportGenerator report) throws Exception {
+        return scanTree(repository, ref, root, rules, threads, report, null);
+    }
+
+    /**
+     * Same as above, the getter index saved in indexFile, when there is one, is reused for the unchanged blobs.
+     */
+    public static ScanStatistics scanTree(Repository repository, String ref, Path root, ScanRules rules, int threads,
+                                          ReportGenerator report, Path indexFile) throws Exception {
+        return scanTree(repository, ref, root, rules, threads, report, indexFile, null);
+    }
+
+    /**
+     * Same as above, only the files of shard are scanned when there is one. A blob found at several paths
+     * belongs to the shard of its first path.
+     */
+    public static ScanStatistics scanTree(Repository repository, String ref, Path root, ScanRules rules, int threads,
+                                          ReportGenerator report, Path indexFile, ScanShard shard) throws Exception {
+        ScanStatistics statistics = new ScanStatistics();
+        statistics.setShard(shard);
+        Map<Path, ObjectId> files = listFiles(repository, resolveTree(repository, ref, root), root, rules, statistics);
+        GetterIndex index = buildIndex(repository, files, rules, threads, indexFile, statistics);
+
+        Set<ObjectId> seenBlobs = new HashSet<>();
+        try (ScanWorkers workers = new ScanWorkers(root, threads, report, statistics.getMetrics())) {
+            for (Map.Entry<Path, ObjectId> file : files.entrySet()) {
+                Path path = file.getKey();
+                ObjectId blobId = file.getValue();
+                boolean included = shard == null || shard.includes(root, path);
+                if (!seenBlobs.add(blobId)) {
+                    if (included) {
+                        statistics.recordDuplicate();
+                    }
+                    continue;
+                }
+                if (!included) {
+                    workers.skip();
+                    continue;
+                }
+                workers.submit(path, () -> scanBlob(repository, blobId, path, rules, statistics, null, index));
+            }
+            workers.awaitAll();
+        }
+        return statistics;
+    }
+
+    static RevTree resolveTree(Repository repository, String ref, Path root) throws IOException {
+        ObjectId commitId = repository.resolve(ref + "^{commit}");
+        if (commitId == null) {
+            throw new IllegalArgumentException("Unknown revision " + ref + " in " + root);
+        }
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return revWalk.parseCommit(commitId).getTree();
+        }
+    }
+
+    /**
+     * The files of tree the rules let through in tree order, labelled root/path, with their blobs.
+     */
+    static Map<Path, ObjectId> listFiles(Repository repository, RevTree tree, Path root, ScanRules rules,
+                                         ScanStatistics statistics) throws IOException {
+        Map<Path, ObjectId> files = new LinkedHashMap<>();
+        ScanMetrics metrics = statistics.getMetrics();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(tree);
+            treeWalk.setRecursive(false);
+
+            while (next(treeWalk, metrics)) {
+                Path path = root.resolve(treeWalk.getPathString());
+                if (treeWalk.isSubtree()) {
+                    if (rules.isIgnoredDirectory(path)) {
+                        statistics.recordPrunedDirectory();
+                    } else {
+                        treeWalk.enterSubtree();
+                    }
+                    continue;
+                }
+                // Symbolic links and submodules have no content of their own to scan
+                FileMode mode = treeWalk.getFileMode(0);
+                if ((mode != FileMode.REGULAR_FILE && mode != FileMode.EXECUTABLE_FILE)
+                        || rules.isIgnoredPath(path) || !rules.isSupportedFileType(path)) {
+                    continue;
+                }
+                files.put(path, treeWalk.getObjectId(0));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Indexes the getters of the Java blobs among files, the blob ids tell the unchanged entries of a saved index.
+     */
+    static GetterIndex buildIndex(Repository repository, Map<Path, ObjectId> files, ScanRules rules, int threads,
+                                  Path indexFile, ScanStatistics statistics) throws Exception {
+        return Scanner.buildIndex(new ArrayList<>(files.keySet()), new GetterIndex.ContentSource() {
+            @Override
+            public byte[] read(Path file) throws IOException {
+                return readBlob(repository, files.get(file));
+            }
+
+            @Override
+            public String getId(Path file) {
+                return files.get(file).name();
+            }
+        }, rules, threads, indexFile, statistics);
+    }
+
+    private static boolean next(TreeWalk treeWalk, ScanMetrics metrics) throws IOException {
+        ScanMetrics.PhaseTimer timer = metrics.startTimer();
+        boolean found = treeWalk.next();
+        timer.record(ScanMetrics.Phase.WALK);
+        return found;
+    }
+
+    static List<Finding> scanBlob(Repository repository, ObjectId blobId, Path path, ScanRules rules,
+                                  ScanStatistics statistics, BitSet checkedLines, GetterIndex index) throws IOException {
+        ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+        byte[] content = readBlob(repository, blobId);
+        timer.record(ScanMetrics.Phase.READ);
+        return SensitiveInfoScanner.scanContent(path, content, rules, statistics, checkedLines, index);
+    }
+
+    private static byte[] readBlob(Repository repository, ObjectId blobId) throws IOException {
+        // Readers are not thread safe, every read opens its own
+        try (ObjectReader reader = repository.newObjectReader()) {
+            return reader.open(blobId, Constants.OBJ_BLOB).getCachedBytes(Integer.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.scan.sensitiveinfo;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.stmt.ReturnStmt;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Collects everything the scanner needs from a Java file in a single traversal of its syntax tree:
+ * the sensitive fields, the return statements of every method and the expression statements inside
+ * methods. Getters and log statements are derived from these lists without walking the tree again.
+ */
+public class JavaSourceAnalyzer extends VoidVisitorAdapter<Void> {
+
+    // JavaParser is not thread-safe, so every scan worker keeps its own instance
+    private static final ThreadLocal<JavaParser> PARSER = ThreadLocal.withInitial(() ->
+            new JavaParser(new ParserConfiguration().setAttributeComments(false)));
+
+    /**
+     * A statement inside a method body that matches one of the log patterns.
+     */
+    public static class LogStatement {
+        private final int line;
+        private final String text;
+
+        LogStatement(int line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * What the checks need from one Java file, small enough to be kept for every file of a project.
+     */
+    public static class Summary {
+        private final String typeName;
+        private final List<String> sensitiveFields;
+        private final Map<String, String> sensitiveGetters;
+        private final Map<String, String> accessors;
+        private final Map<String, Set<String>> delegations;
+        private final List<LogStatement> logStatements;
+
+        Summary(String typeName, List<String> sensitiveFields, Map<String, String> sensitiveGetters,
+                Map<String, String> accessors, Map<String, Set<String>> delegations, List<LogStatement> logStatements) {
+            this.typeName = typeName;
+            this.sensitiveFields = sensitiveFields;
+            this.sensitiveGetters = sensitiveGetters;
+            this.accessors = accessors;
+            this.delegations = delegations;
+            this.logStatements = logStatements;
+        }
+
+        /**
+         * Qualified name of the first type declared in the file, null when it declares none.
+         */
+        public String getTypeName() {
+            return typeName;
+        }
+
+        public List<String> getSensitiveFields() {
+            return sensitiveFields;
+        }
+
+        public Map<String, String> getSensitiveGetters() {
+            return sensitiveGetters;
+        }
+
+        public Map<String, String> getAccessors() {
+            return accessors;
+        }
+
+        public Map<String, Set<String>> getDelegations() {
+            return delegations;
+        }
+
+        public List<LogStatement> getLogStatements() {
+            return logStatements;
+        }
+    }
+
+    private final ScanRules rules;
+    private String typeName;
+    // Simple names of the single type imports mapped to the qualified names
+    private final Map<String, String> importedTypes = new HashMap<>();
+    // Declared types of the fields with a class type
+    private final Map<String, String> fieldTypes = new HashMap<>();
+    private final List<String> sensitiveFields = new ArrayList<>();
+    private final List<String> methodNames = new ArrayList<>();
+    private final List<Boolean> methodParameterless = new ArrayList<>();
+    private final List<List<ReturnStmt>> methodReturns = new ArrayList<>();
+    private final List<ExpressionStmt> methodStatements = new ArrayList<>();
+    private final Deque<Integer> enclosingMethods = new ArrayDeque<>();
+
+    private JavaSourceAnalyzer(ScanRules rules) {
+        this.rules = rules;
+    }
+
+    public static JavaSourceAnalyzer analyze(Path filePath, String source, ScanRules rules) throws IOException {
+        return analyze(parse(filePath, source), rules);
+    }
+
+    public static CompilationUnit parse(Path filePath, String source) throws IOException {
+        return PARSER.get().parse(source).getResult()
+                .orElseThrow(() -> new IOException("Failed to parse " + filePath));
+    }
+
+    public static JavaSourceAnalyzer analyze(CompilationUnit cu, ScanRules rules) {
+        JavaSourceAnalyzer analyzer = new JavaSourceAnalyzer(rules);
+        if (!cu.getTypes().isEmpty()) {
+            analyzer.typeName = cu.getPackageDeclaration().map(pkg -> pkg.getNameAsString() + ".").orElse("")
+                    + cu.getType(0).getNameAsString();
+        }
+        for (ImportDeclaration importDecl : cu.getImports()) {
+            if (!importDecl.isAsterisk() && !importDecl.isStatic()) {
+                analyzer.importedTypes.put(importDecl.getName().getIdentifier(), importDecl.getNameAsString());
+            }
+        }
+        cu.accept(analyzer, null);
+        return analyzer;
+    }
+
+    /**
+     * Everything the checks and the project index need, the syntax tree can be dropped afterwards.
+     */
+    public Summary summarize() {
+        return new Summary(typeName, sensitiveFields, getSensitiveGetters(), getAccessors(), getDelegations(), getLogStatements());
+    }
+
+    @Override
+    public void visit(FieldDeclaration fieldDecl, Void arg) {
+        fieldDecl.getVariables().forEach(variable -> {
+            if (rules.isSensitiveField(variable.getNameAsString())) {
+                sensitiveFields.add(variable.getNameAsString());
+            }
+            Type type = variable.getType();
+            if (type.isClassOrInterfaceType()) {
+                fieldTypes.put(variable.getNameAsString(), type.asClassOrInterfaceType().getNameWithScope());
+            }
+        });
+        super.visit(fieldDecl, arg);
+    }
+
+    @Override
+    public void visit(MethodDeclaration methodDecl, Void arg) {
+        enclosingMethods.push(methodNames.size());
+        methodNames.add(methodDecl.getNameAsString());
+        methodParameterless.add(methodDecl.getParameters().isEmpty());
+        methodReturns.add(new ArrayList<>());
+        super.visit(methodDecl, arg);
+        enclosingMethods.pop();
+    }
+
+    @Override
+    public void visit(ReturnStmt returnStmt, Void arg) {
+        // A return inside a lambda or local class still belongs to every enclosing method body
+        enclosingMethods.forEach(method -> methodReturns.get(method).add(returnStmt));
+        super.visit(returnStmt, arg);
+    }
+
+    @Override
+    public void visit(ExpressionStmt exprStmt, Void arg) {
+        if (!enclosingMethods.isEmpty()) {
+            methodStatements.add(exprStmt);
+        }
+        super.visit(exprStmt, arg);
+    }
+
+    /**
+     * Names of the fields declared with a sensitive name, in declaration order.
+     */
+    public List<String> getSensitiveFields() {
+        return sensitiveFields;
+    }
+
+    /**
+     * Maps the name of every method returning a sensitive field to that field.
+     */
+    public Map<String, String> getSensitiveGetters() {
+        Map<String, String> methodToFieldMap = new HashMap<>();
+        if (sensitiveFields.isEmpty()) {
+            return methodToFieldMap;
+        }
+
+        List<List<String>> returnTexts = new ArrayList<>(methodReturns.size());
+        methodReturns.forEach(returns -> {
+            List<String> texts = new ArrayList<>(returns.size());
+            returns.forEach(returnStmt -> texts.add(returnStmt.toString()));
+            returnTexts.add(texts);
+        });
+
+        for (String fieldName : sensitiveFields) {
+            for (int method = 0; method < methodNames.size(); method++) {
+                if (returnTexts.get(method).stream().anyMatch(text -> text.contains(fieldName))) {
+                    // Store the method name and the field it returns
+                    methodToFieldMap.put(methodNames.get(method), fieldName);
+                }
+            }
+        }
+        return methodToFieldMap;
+    }
+
+    /**
+     * Maps the methods without parameters that only return a sensitive field, "return password;", to that
+     * field. Stricter than {@link #getSensitiveGetters()}, these are the getters other classes can call.
+     */
+    public Map<String, String> getAccessors() {
+        Map<String, String> accessors = new HashMap<>();
+        for (int method = 0; method < methodNames.size(); method++) {
+            String field = null;
+            for (ReturnStmt returnStmt : methodParameterless.get(method) ? methodReturns.get(method) : Collections.<ReturnStmt>emptyList()) {
+                String returned = returnStmt.getExpression().map(JavaSourceAnalyzer::returnedName).orElse(null);
+                if (returned == null || !sensitiveFields.contains(returned) || (field != null && !field.equals(returned))) {
+                    field = null;
+                    break;
+                }
+                field = returned;
+            }
+            if (field != null) {
+                accessors.put(methodNames.get(method), field);
+            }
+        }
+        return accessors;
+    }
+
+    /**
+     * Maps the methods without parameters that only return the result of a call without arguments on
+     * this class or on one of its fields, "return getSecret();" or "return account.getSecret();", to the
+     * methods they call as Type#method. The type is the declared type of the field, qualified when the
+     * file imports it, and the qualified name of this class for its own methods. Calls on anything else,
+     * such as a local variable, are not followed, their type is not known.
+     */
+    public Map<String, Set<String>> getDelegations() {
+        Map<String, Set<String>> delegations = new HashMap<>();
+        for (int method = 0; method < methodNames.size(); method++) {
+            Set<String> calls = new TreeSet<>();
+            for (ReturnStmt returnStmt : methodParameterless.get(method) ? methodReturns.get(method) : Collections.<ReturnStmt>emptyList()) {
+                Expression returned = returnStmt.getExpression().orElse(null);
+                String receiver = null;
+                if (returned != null && returned.isMethodCallExpr() && returned.asMethodCallExpr().getArguments().isEmpty()) {
+                    receiver = receiverType(returned.asMethodCallExpr().getScope().orElse(null));
+                }
+                if (receiver == null) {
+                    calls.clear();
+                    break;
+                }
+                calls.add(receiver + "#" + returned.asMethodCallExpr().getNameAsString());
+            }
+            if (!calls.isEmpty()) {
+                delegations.put(methodNames.get(method), calls);
+            }
+        }
+        return delegations;
+    }
+
+    // The type a call is made on, this class without a scope or on this, null when it is not known
+    private String receiverType(Expression scope) {
+        if (scope == null || scope.isThisExpr()) {
+            return typeName;
+        }
+        String field = returnedName(scope);
+        String type = field == null ? null : fieldTypes.get(field);
+        if (type == null) {
+            return null;
+        }
+        return importedTypes.getOrDefault(type, type);
+    }
+
+    // The field an expression names, either alone or through this
+    private static String returnedName(Expression returned) {
+        if (returned.isNameExpr()) {
+            return returned.asNameExpr().getNameAsString();
+        }
+        if (returned.isFieldAccessExpr() && returned.asFieldAccessExpr().getScope().isThisExpr()) {
+            return returned.asFieldAccessExpr().getNameAsString();
+        }
+        return null;
+    }
+
+    /**
+     * Log statements inside method bodies. They only matter when the file declares a sensitive field,
+     * so the statements are not printed otherwise.
+     */
+    public List<LogStatement> getLogStatements() {
+        List<LogStatement> logStatements = new ArrayList<>();
+        if (sensitiveFields.isEmpty()) {
+            return logStatements;
+        }
+
+        for (ExpressionStmt exprStmt : methodStatements) {
+            String statement = exprStmt.toString().trim();
+            if (rules.isLogStatement(statement)) {
+                int lineNumber = exprStmt.getBegin().map(pos -> pos.line).orElse(-1);
+                logStatements.add(new LogStatement(lineNumber, statement));
+            }
+        }
+        return logStatements;
+    }
+}
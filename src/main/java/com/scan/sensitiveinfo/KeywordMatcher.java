@@ -0,0 +1,247 @@
+package com.scan.sensitiveinfo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton that finds every occurrence of a fixed set of keywords in one linear pass.
+ *
+ * The automaton runs over the UTF-8 bytes of the keywords, so the same instance can match Strings
+ * and raw file content. Bytes that do not occur in any keyword share one input class, which keeps the
+ * transition table small even for a few hundred keywords. Case-insensitive matching folds ASCII
+ * letters only, the same as {@link java.util.regex.Pattern#CASE_INSENSITIVE}.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class KeywordMatcher {
+
+    /**
+     * Receives the keyword hits of {@link #findAll}. Offsets are in chars for text and in bytes for
+     * byte input, the end offset is exclusive.
+     */
+    public interface MatchListener {
+        void onMatch(int keyword, int start, int end);
+    }
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final String[] keywords;
+    private final int[] keywordByteLengths;
+    private final boolean caseInsensitive;
+    private final int[] inputClass = new int[256];
+    private final int classCount;
+    private final int[] transitions;
+    private final int[][] outputs;
+
+    public KeywordMatcher(Collection<String> keywords, boolean caseInsensitive) {
+        this.caseInsensitive = caseInsensitive;
+
+        // Empty keywords would match every input, they are left out
+        List<String> accepted = new ArrayList<>();
+        List<byte[]> encoded = new ArrayList<>();
+        for (String keyword : keywords) {
+            if (keyword != null && !keyword.isEmpty()) {
+                accepted.add(keyword);
+                encoded.add(keyword.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        this.keywords = accepted.toArray(new String[0]);
+        this.keywordByteLengths = new int[encoded.size()];
+
+        // Class 0 stands for every byte that does not occur in a keyword
+        int classes = 1;
+        int totalLength = 0;
+        for (byte[] keyword : encoded) {
+            totalLength += keyword.length;
+            for (byte b : keyword) {
+                int symbol = b & 0xFF;
+                if (inputClass[symbol] == 0) {
+                    inputClass[symbol] = classes;
+                    if (caseInsensitive && isAsciiLetter(symbol)) {
+                        inputClass[symbol ^ 0x20] = classes;
+                    }
+                    classes++;
+                }
+            }
+        }
+        this.classCount = classes;
+
+        // Build the keyword trie, -1 marks a missing edge
+        int[] trie = new int[(totalLength + 1) * classCount];
+        Arrays.fill(trie, -1);
+        List<List<Integer>> stateOutputs = new ArrayList<>();
+        stateOutputs.add(new ArrayList<>());
+        int states = 1;
+        for (int k = 0; k < encoded.size(); k++) {
+            byte[] keyword = encoded.get(k);
+            keywordByteLengths[k] = keyword.length;
+            int state = 0;
+            for (byte b : keyword) {
+                int edge = state * classCount + inputClass[b & 0xFF];
+                if (trie[edge] < 0) {
+                    trie[edge] = states++;
+                    stateOutputs.add(new ArrayList<>());
+                }
+                state = trie[edge];
+            }
+            stateOutputs.get(state).add(k);
+        }
+
+        // Breadth-first pass that resolves failure links into plain DFA transitions
+        this.transitions = Arrays.copyOf(trie, states * classCount);
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < classCount; c++) {
+            int next = transitions[c];
+            if (next < 0) {
+                transitions[c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            stateOutputs.get(state).addAll(stateOutputs.get(failure[state]));
+            for (int c = 0; c < classCount; c++) {
+                int edge = state * classCount + c;
+                int fallback = transitions[failure[state] * classCount + c];
+                if (transitions[edge] < 0) {
+                    transitions[edge] = fallback;
+                } else {
+                    failure[transitions[edge]] = fallback;
+                    queue.add(transitions[edge]);
+                }
+            }
+        }
+
+        this.outputs = new int[states][];
+        for (int state = 0; state < states; state++) {
+            List<Integer> found = stateOutputs.get(state);
+            outputs[state] = found.isEmpty() ? NO_OUTPUT : found.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    public String getKeyword(int keyword) {
+        return keywords[keyword];
+    }
+
+    public boolean isCaseInsensitive() {
+        return caseInsensitive;
+    }
+
+    public boolean containsAny(CharSequence text) {
+        return scan(text, null);
+    }
+
+    public void findAll(CharSequence text, MatchListener listener) {
+        scan(text, listener);
+    }
+
+    public boolean containsAny(byte[] content, int from, int to) {
+        return scan(content, from, to, null);
+    }
+
+    public void findAll(byte[] content, int from, int to, MatchListener listener) {
+        scan(content, from, to, listener);
+    }
+
+    /**
+     * Same as above for content in a buffer, for example a mapped file. The buffer position is not used or changed.
+     */
+    public boolean containsAny(ByteBuffer content, int from, int to) {
+        return scan(content, from, to, null);
+    }
+
+    public void findAll(ByteBuffer content, int from, int to, MatchListener listener) {
+        scan(content, from, to, listener);
+    }
+
+    // Returns on the first hit when there is no listener
+    private boolean scan(CharSequence text, MatchListener listener) {
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                state = step(state, c);
+            } else if (c < 0x800) {
+                state = step(step(state, 0xC0 | (c >> 6)), 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                state = step(state, 0xF0 | (codePoint >> 18));
+                state = step(state, 0x80 | ((codePoint >> 12) & 0x3F));
+                state = step(state, 0x80 | ((codePoint >> 6) & 0x3F));
+                state = step(state, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are encoded as '?', the same as String.getBytes does
+                state = step(state, '?');
+            } else {
+                state = step(state, 0xE0 | (c >> 12));
+                state = step(step(state, 0x80 | ((c >> 6) & 0x3F)), 0x80 | (c & 0x3F));
+            }
+            int[] found = outputs[state];
+            if (found.length > 0) {
+                if (listener == null) {
+                    return true;
+                }
+                for (int keyword : found) {
+                    listener.onMatch(keyword, i + 1 - keywords[keyword].length(), i + 1);
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean scan(byte[] content, int from, int to, MatchListener listener) {
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            state = step(state, content[i] & 0xFF);
+            int[] found = outputs[state];
+            if (found.length > 0) {
+                if (listener == null) {
+                    return true;
+                }
+                for (int keyword : found) {
+                    listener.onMatch(keyword, i + 1 - keywordByteLengths[keyword], i + 1);
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean scan(ByteBuffer content, int from, int to, MatchListener listener) {
+        int state = 0;
+        for (int i = from; i < to; i++) {
+            state = step(state, content.get(i) & 0xFF);
+            int[] found = outputs[state];
+            if (found.length > 0) {
+                if (listener == null) {
+                    return true;
+                }
+                for (int keyword : found) {
+                    listener.onMatch(keyword, i + 1 - keywordByteLengths[keyword], i + 1);
+                }
+            }
+        }
+        return false;
+    }
+
+    private int step(int state, int symbol) {
+        return transitions[state * classCount + inputClass[symbol]];
+    }
+
+    private static boolean isAsciiLetter(int symbol) {
+        return (symbol >= 'a' && symbol <= 'z') || (symbol >= 'A' && symbol <= 'Z');
+    }
+}
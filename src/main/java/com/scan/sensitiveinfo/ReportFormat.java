@@ -0,0 +1,254 @@
+package com.scan.sensitiveinfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Output formats of the report. Every format is written as a stream: a header, one record per
+ * finding as it arrives and a footer with the scan summary.
+ */
+public enum ReportFormat {
+
+    /** The original report, one "[message]" line per finding. */
+    TEXT {
+        @Override
+        FindingWriter newWriter(Writer out) {
+            return new TextWriter(out);
+        }
+    },
+    /** One JSON object per line, the summary is the last line. */
+    JSONL {
+        @Override
+        FindingWriter newWriter(Writer out) {
+            return new JsonlWriter(out);
+        }
+    },
+    /**
+     * The jsonl records with the position of the file in the report, written by a shard of a scan.
+     * The partial reports of all shards are merged into one report.
+     */
+    PARTIAL {
+        @Override
+        FindingWriter newWriter(Writer out) {
+            return new PartialWriter(out);
+        }
+    },
+    /** A SARIF 2.1.0 log with a single run. */
+    SARIF {
+        @Override
+        FindingWriter newWriter(Writer out) {
+            return new SarifWriter(out);
+        }
+    };
+
+    abstract FindingWriter newWriter(Writer out);
+
+    public static ReportFormat fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown report format " + name + ", expected text, jsonl, sarif or partial");
+        }
+    }
+
+    /**
+     * Writes findings in one format. Only the report writer thread uses an instance.
+     */
+    abstract static class FindingWriter {
+        protected final Writer out;
+
+        FindingWriter(Writer out) {
+            this.out = out;
+        }
+
+        void begin() throws IOException {
+        }
+
+        abstract void write(Finding finding) throws IOException;
+
+        /**
+         * Writes a finding of the file at position sequence of the report.
+         */
+        void write(long sequence, Finding finding) throws IOException {
+            write(finding);
+        }
+
+        abstract void end(ScanStatistics statistics) throws IOException;
+    }
+
+    private static class TextWriter extends FindingWriter {
+        TextWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void write(Finding finding) throws IOException {
+            out.write("[" + finding.getMessage() + "]");
+            out.write(System.lineSeparator());
+        }
+
+        @Override
+        void end(ScanStatistics statistics) throws IOException {
+            if (statistics != null) {
+                for (String line : statistics.getSummary()) {
+                    out.write("# " + line);
+                    out.write(System.lineSeparator());
+                }
+            }
+        }
+    }
+
+    private static class JsonlWriter extends FindingWriter {
+        JsonlWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void write(Finding finding) throws IOException {
+            out.write(record(finding));
+        }
+
+        static String record(Finding finding) {
+            return "{\"file\":" + quote(finding.getFile())
+                    + ",\"line\":" + finding.getLine()
+                    + ",\"rule\":" + quote(finding.getRule())
+                    + ",\"message\":" + quote(finding.getMessage())
+                    + ",\"fingerprint\":" + quote(finding.getFingerprint()) + "}\n";
+        }
+
+        @Override
+        void end(ScanStatistics statistics) throws IOException {
+            if (statistics != null) {
+                out.write("{\"summary\":" + summary(statistics) + "}\n");
+            }
+        }
+    }
+
+    private static class PartialWriter extends JsonlWriter {
+        PartialWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void write(long sequence, Finding finding) throws IOException {
+            out.write("{\"sequence\":" + sequence + "," + record(finding).substring(1));
+        }
+
+        @Override
+        void end(ScanStatistics statistics) throws IOException {
+            if (statistics != null) {
+                String summary = summary(statistics);
+                String shard = statistics.getShard() == null ? "" : ",\"shard\":" + quote(statistics.getShard().toString());
+                out.write("{\"summary\":" + summary.substring(0, summary.length() - 1) + shard + "}}\n");
+            }
+        }
+    }
+
+    private static class SarifWriter extends FindingWriter {
+        private final Set<String> rules = new TreeSet<>();
+        private boolean first = true;
+
+        SarifWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin() throws IOException {
+            out.write("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\",\"runs\":[{\"results\":[\n");
+        }
+
+        @Override
+        void write(Finding finding) throws IOException {
+            rules.add(finding.getRule());
+            if (!first) {
+                out.write(",\n");
+            }
+            first = false;
+            String region = finding.getLine() > 0 ? ",\"region\":{\"startLine\":" + finding.getLine() + "}" : "";
+            out.write("{\"ruleId\":" + quote(finding.getRule())
+                    + ",\"level\":\"warning\""
+                    + ",\"message\":{\"text\":" + quote(finding.getMessage()) + "}"
+                    + ",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":"
+                    + quote(uri(finding.getFile())) + "}" + region + "}}]"
+                    + ",\"partialFingerprints\":{\"siscan/v1\":" + quote(finding.getFingerprint()) + "}}");
+        }
+
+        // An absolute, percent-encoded file: URI, so spaces, '#' and '%' in names survive SARIF viewers
+        private static String uri(String file) {
+            try {
+                return Paths.get(file).toUri().toASCIIString();
+            } catch (InvalidPathException e) {
+                // A file from a partial report written on another platform
+                return new File(file).toURI().toASCIIString();
+            }
+        }
+
+        @Override
+        void end(ScanStatistics statistics) throws IOException {
+            out.write("\n],\"tool\":{\"driver\":{\"name\":\"SIScan\",\"rules\":[");
+            boolean firstRule = true;
+            for (String rule : rules) {
+                out.write((firstRule ? "" : ",") + "{\"id\":" + quote(rule) + "}");
+                firstRule = false;
+            }
+            out.write("]}}");
+            if (statistics != null) {
+                out.write(",\"properties\":" + summary(statistics));
+            }
+            out.write("}]}\n");
+        }
+    }
+
+    private static String summary(ScanStatistics statistics) {
+        return "{\"filesScanned\":" + statistics.getFilesScanned()
+                + ",\"filesWithoutKeywords\":" + statistics.getFilesWithoutKeywords()
+                + ",\"javaFilesWithoutSensitiveIdentifiers\":" + statistics.getJavaFilesWithoutSensitiveIdentifiers()
+                + ",\"javaFilesParsed\":" + statistics.getJavaFilesParsed()
+                + ",\"filesFromCache\":" + statistics.getFilesFromCache()
+                + ",\"duplicateBlobs\":" + statistics.getDuplicateBlobs()
+                + ",\"directoriesPruned\":" + statistics.getDirectoriesPruned()
+                + ",\"indexedGetters\":" + statistics.getIndexedGetters()
+                + ",\"archivesScanned\":" + statistics.getArchivesScanned()
+                + (statistics.getRepositoriesScanned() > 0 || !statistics.getFailedRepositories().isEmpty()
+                        ? ",\"repositoriesScanned\":" + statistics.getRepositoriesScanned()
+                        + ",\"repositoriesFailed\":" + statistics.getFailedRepositories().size() : "")
+                + "}";
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
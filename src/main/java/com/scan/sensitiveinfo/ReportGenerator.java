@@ -1,45 +1,221 @@
 package com.scan.sensitiveinfo;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class ReportGenerator {
+/**
+ * Streams findings to the report while the scan is running.
+ *
+ * Workers hand over the findings of each file with the sequence number the file got when it was
+ * submitted. Batches are written strictly in sequence order, so the report does not depend on how
+ * the workers were scheduled. A worker that finishes too far ahead of the oldest unwritten file
+ * waits, and a single writer thread drains a bounded queue into a buffered writer, so memory stays
+ * flat no matter how many findings the scan produces.
+ */
+public class ReportGenerator implements Closeable {
 
-    private static final List<String> reportEntries = new ArrayList<>();
+    private static final int REORDER_WINDOW = 4096;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Batch END_OF_REPORT = new Batch(-1, new ArrayList<>());
 
-    public static void addToReport(String type, Path filePath, String line) {
-        String entry = "[" + type + "]";
-        reportEntries.add(entry);
-        System.out.println(entry);
+    // The findings of one file with its position in the report
+    private static class Batch {
+        private final long sequence;
+        private final List<Finding> findings;
+
+        Batch(long sequence, List<Finding> findings) {
+            this.sequence = sequence;
+            this.findings = findings;
+        }
     }
 
-    public static void generateReport(String outputFile) throws IOException {
-        //Files.write(Paths.get(outputFile), reportEntries);
+    private final String outputFile;
+    private final Writer writer;
+    private final ReportFormat.FindingWriter findingWriter;
+    private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Map<Long, List<Finding>> pending = new HashMap<>();
+    private final boolean flushEachBatch;
+    private final Thread writerThread;
+    private final AtomicLong reservedSequences = new AtomicLong();
+    private long nextSequence;
+    private long findingCount;
+    private volatile ScanStatistics statistics;
+    private volatile IOException failure;
 
-        /*try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputFile))) {
-            for (String entry : reportEntries) {
-                writer.write(entry);
-                writer.newLine(); // Ensure each entry is written on a new line
-            }
-        }*/
+    public ReportGenerator(Writer writer, ReportFormat format) {
+        this(writer, format, null, false);
+    }
+
+    /**
+     * A report read while it is written, such as a response streamed to a client. The writer is flushed
+     * whenever the written findings caught up with the scan.
+     */
+    public static ReportGenerator streaming(Writer writer, ReportFormat format) {
+        return new ReportGenerator(writer, format, null, true);
+    }
+
+    private ReportGenerator(Writer writer, ReportFormat format, String outputFile, boolean flushEachBatch) {
+        this.outputFile = outputFile;
+        this.writer = writer;
+        this.flushEachBatch = flushEachBatch;
+        this.findingWriter = format.newWriter(writer);
+        this.writerThread = new Thread(this::writeReport, "report-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
 
+    public static ReportGenerator open(String outputFile, ReportFormat format) throws IOException {
         System.out.println("Generating report at " + outputFile);
+        return new ReportGenerator(Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8), format, outputFile, false);
+    }
+
+    /**
+     * Reserves the position of the next file in the report. Call it in the order the files should
+     * appear, before the file is handed to a worker.
+     */
+    public long reserveSequence() {
+        return reservedSequences.getAndIncrement();
+    }
+
+    /**
+     * Hands over all findings of one file. Every reserved sequence number has to be added exactly
+     * once, files without findings included, or the report stops at the gap until it is closed.
+     */
+    public void addFileFindings(long sequence, List<Finding> findings) throws IOException {
+        try {
+            synchronized (pending) {
+                while (sequence >= nextSequence + REORDER_WINDOW) {
+                    pending.wait();
+                }
+                pending.put(sequence, findings);
+                List<Finding> batch;
+                while ((batch = pending.remove(nextSequence)) != null) {
+                    if (!batch.isEmpty()) {
+                        queue.put(new Batch(nextSequence, batch));
+                    }
+                    nextSequence++;
+                }
+                pending.notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while adding findings to the report");
+        }
+        checkFailure();
+    }
+
+    /**
+     * Summary written at the end of the report.
+     */
+    public void setStatistics(ScanStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public long getFindingCount() {
+        return findingCount;
+    }
+
+    /**
+     * Writes what is left, the report footer, and waits until everything is on disk.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (pending) {
+                // Sequences that never arrived must not hold back the files after them
+                for (Map.Entry<Long, List<Finding>> batch : new TreeMap<>(pending).entrySet()) {
+                    if (!batch.getValue().isEmpty()) {
+                        queue.put(new Batch(batch.getKey(), batch.getValue()));
+                    }
+                }
+                pending.clear();
+            }
+            queue.put(END_OF_REPORT);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            writerThread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the report");
+        }
+        checkFailure();
+
+        if (outputFile != null) {
+            if (Files.exists(Paths.get(outputFile))) {
+                // Print a success message once the file is generated
+                System.out.println("Report successfully generated at " + outputFile + " with " + findingCount + " findings");
+            } else {
+                // In case the file wasn't created, print an error message
+                System.out.println("Error: Report generation failed.");
+            }
+        }
+    }
+
+    // Keeps draining the queue after a write failure so that no worker blocks on a full queue
+    private void writeReport() {
+        try {
+            findingWriter.begin();
+        } catch (IOException e) {
+            failure = e;
+        }
+        try {
+            Batch batch;
+            while ((batch = queue.take()) != END_OF_REPORT) {
+                if (failure == null) {
+                    writeBatch(batch);
+                    if (flushEachBatch && queue.isEmpty()) {
+                        flush();
+                    }
+                }
+            }
+            if (failure == null) {
+                findingWriter.end(statistics);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Report writer interrupted");
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void writeBatch(Batch batch) {
+        try {
+            for (Finding finding : batch.findings) {
+                findingWriter.write(batch.sequence, finding);
+                findingCount++;
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
 
-        StringBuilder reportContent = new StringBuilder();
-        reportEntries.parallelStream().forEach(entry -> {
-            reportContent.append(entry).append(System.lineSeparator());
-        });
-        Files.write(Paths.get(outputFile), reportContent.toString().getBytes());
-
-        // Check if the file exists after writing
-        if (Files.exists(Paths.get(outputFile))) {
-            // Print a success message once the file is generated
-            System.out.println("Report successfully generated at " + outputFile);
-        } else {
-            // In case the file wasn't created, print an error message
-            System.out.println("Error: Report generation failed.");
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) {
+            throw new IOException("Failed to write the report", e);
         }
     }
 }
@@ -0,0 +1,132 @@
+package com.scan.sensitiveinfo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Merges the partial reports of the shards of a scan into the report a single process would have written.
+ *
+ * Every finding of a partial report carries the position of its file in the report, which is the same
+ * in every shard. The partial reports are merged by that position, and within a file keep the order of
+ * the shard that scanned it. A file found in more than one partial report, e.g. because a partial
+ * report was passed twice, is taken from the first of them only. The summaries of the shards are
+ * added up, and all shards of the scan have to be there.
+ */
+public class ReportMerger {
+
+    // The next unmerged finding of one partial report
+    private static class Head {
+        private final FindingReader reader;
+        private final int order;
+        private Finding finding;
+        private long sequence;
+
+        Head(FindingReader reader, int order) {
+            this.reader = reader;
+            this.order = order;
+        }
+
+        boolean advance() throws IOException {
+            long previous = sequence;
+            finding = reader.next();
+            if (finding == null) {
+                return false;
+            }
+            sequence = reader.getSequence();
+            if (sequence < 0) {
+                throw new IOException(reader.getFile() + " is not a partial report, shards write them with --shard=i/N");
+            }
+            if (sequence < previous) {
+                throw new IOException(reader.getFile() + " is not in report order");
+            }
+            return true;
+        }
+    }
+
+    private static final Comparator<Head> REPORT_ORDER = Comparator.<Head>comparingLong(head -> head.sequence)
+            .thenComparingInt(head -> head.order);
+
+    /**
+     * Merges partials into outputFile, written in format.
+     */
+    public static ScanStatistics merge(List<Path> partials, String outputFile, ReportFormat format) throws IOException {
+        // The summaries are at the end, they are checked before anything is written
+        ScanStatistics statistics = mergeSummaries(partials);
+        List<FindingReader> readers = new ArrayList<>();
+        try (ReportGenerator report = ReportGenerator.open(outputFile, format)) {
+            PriorityQueue<Head> heads = new PriorityQueue<>(REPORT_ORDER);
+            for (Path partial : partials) {
+                FindingReader reader = new FindingReader(partial);
+                readers.add(reader);
+                Head head = new Head(reader, readers.size());
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            }
+
+            long lastSequence = -1;
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                long sequence = head.sequence;
+                List<Finding> findings = new ArrayList<>();
+                boolean more;
+                do {
+                    findings.add(head.finding);
+                } while ((more = head.advance()) && head.sequence == sequence);
+                if (more) {
+                    heads.add(head);
+                }
+                if (sequence == lastSequence) {
+                    System.err.println("Skipping the findings of " + findings.get(0).getFile() + " in " + head.reader.getFile()
+                            + ", they were merged from another partial report");
+                    continue;
+                }
+                report.addFileFindings(report.reserveSequence(), findings);
+                lastSequence = sequence;
+            }
+
+            report.setStatistics(statistics);
+        } finally {
+            for (FindingReader reader : readers) {
+                reader.close();
+            }
+        }
+        return statistics;
+    }
+
+    private static ScanStatistics mergeSummaries(List<Path> partials) throws IOException {
+        ScanStatistics statistics = new ScanStatistics();
+        Map<Integer, Path> shards = new TreeMap<>();
+        int shardCount = 0;
+        for (Path partial : partials) {
+            Map<String, String> summary;
+            try (FindingReader reader = new FindingReader(partial)) {
+                while (reader.next() != null) {
+                    // Only the summary is needed here
+                }
+                summary = reader.getSummary();
+            }
+            if (summary == null) {
+                throw new IOException(partial + " has no summary, the shard did not finish");
+            }
+            if (summary.get("shard") == null) {
+                throw new IOException(partial + " is not a partial report, shards write them with --shard=i/N");
+            }
+            ScanShard shard = ScanShard.parse(summary.get("shard"));
+            if (shardCount != 0 && shard.getCount() != shardCount) {
+                throw new IOException(partial + " is shard " + shard + " of another scan, expected " + shardCount + " shards");
+            }
+            shardCount = shard.getCount();
+            if (shards.putIfAbsent(shard.getIndex(), partial) == null) {
+                statistics.addShardSummary(summary);
+            }
+        }
+        for (int index = 1; index <= shardCount; index++) {
+            if (!shards.containsKey(index)) {
+                throw new IOException("The partial report of shard " + index + "/" + shardCount + " is missing");
+            }
+        }
+        return statistics;
+    }
+}
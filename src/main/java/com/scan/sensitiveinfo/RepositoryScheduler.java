@@ -0,0 +1,238 @@
+package com.scan.sensitiveinfo;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Clones and scans many repositories, overlapping the fetch of one repository with the scan of another.
+ *
+ * Fetches mostly wait on the network and run on a pool of their own, next to a pool of scans that each
+ * get their share of the worker threads. A repository is scanned as soon as it is fetched, into a spool
+ * file of its own. The spools are copied into the report in the order the repositories are listed, as
+ * soon as all repositories before them are done, with the files of each repository under its name.
+ * A repository that cannot be fetched or scanned is listed in the summary and does not stop the others.
+ *
+ * The clones are bare. When the clone directory is kept, a repository cloned by an earlier run is
+ * fetched instead, which only transfers the new objects.
+ */
+public class RepositoryScheduler {
+
+    private static final int MERGE_BATCH = 1000;
+    private static final String PARTIAL_CLONE = ".part";
+
+    private interface Step<T> {
+        T run() throws Exception;
+    }
+
+    private static class RepositoryScan {
+        private final Path spool;
+        private final ScanStatistics statistics;
+
+        RepositoryScan(Path spool, ScanStatistics statistics) {
+            this.spool = spool;
+            this.statistics = statistics;
+        }
+    }
+
+    /**
+     * Scans the repositories listed in git_repos.properties, or in the repositories file of options.
+     */
+    public static ScanStatistics scanRepositories(String outputFile, ScanOptions options) throws Exception {
+        if (options.getRepositoriesFile() == null) {
+            ConfigLoader.loadGitReposConfig();
+        } else {
+            ConfigLoader.loadGitReposConfig(options.getRepositoriesFile());
+        }
+        return scanRepositories(ConfigLoader.getGitReposConfig(), outputFile, options);
+    }
+
+    /**
+     * Clones or fetches the repositories at urls, scans the commit --ref of each and writes one report to outputFile.
+     */
+    public static ScanStatistics scanRepositories(List<String> urls, String outputFile, ScanOptions options) throws Exception {
+        ScanRules rules = ScanRules.load();
+        ScanStatistics statistics = new ScanStatistics();
+        boolean temporary = options.getCloneDirectory() == null;
+        Path cloneDirectory = temporary ? Files.createTempDirectory("siscan-clones")
+                : Files.createDirectories(options.getCloneDirectory());
+        int scans = Math.max(1, Math.min(options.getJobs(), urls.size()));
+        int threadsPerScan = Math.max(1, options.getThreads() / scans);
+        ExecutorService fetchPool = Executors.newFixedThreadPool(options.getFetches(), new ScanWorkers.NamedThreadFactory("repo-fetch"));
+        ExecutorService scanPool = Executors.newFixedThreadPool(scans, new ScanWorkers.NamedThreadFactory("repo-scan"));
+
+        List<String> names = names(urls);
+        List<CompletableFuture<RepositoryScan>> repositories = new ArrayList<>();
+        try (ReportGenerator report = ReportGenerator.open(outputFile, options.getFormat())) {
+            for (int i = 0; i < urls.size(); i++) {
+                String url = urls.get(i);
+                String name = names.get(i);
+                Path gitDir = cloneDirectory.resolve(name + ".git");
+                repositories.add(CompletableFuture
+                        .supplyAsync(() -> unchecked(() -> fetch(url, gitDir, options)), fetchPool)
+                        .thenApplyAsync(fetched -> unchecked(() -> scan(fetched, name, rules, options.getRef(), threadsPerScan)), scanPool));
+            }
+
+            for (int i = 0; i < urls.size(); i++) {
+                RepositoryScan scan;
+                try {
+                    scan = repositories.get(i).join();
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() == null ? e : e.getCause();
+                    String error = cause.getMessage() == null ? cause.toString() : cause.getMessage();
+                    System.err.println("Skipping repository " + urls.get(i) + ": " + error);
+                    statistics.recordFailedRepository(urls.get(i), error);
+                    continue;
+                }
+                merge(scan.spool, report);
+                statistics.add(scan.statistics);
+                statistics.recordRepository();
+            }
+            report.setStatistics(statistics);
+        } finally {
+            fetchPool.shutdownNow();
+            scanPool.shutdownNow();
+            // Spools of the repositories that were not merged because the report failed
+            for (CompletableFuture<RepositoryScan> repository : repositories) {
+                try {
+                    RepositoryScan scan = repository.getNow(null);
+                    if (scan != null) {
+                        Files.deleteIfExists(scan.spool);
+                    }
+                } catch (CompletionException e) {
+                    // Already reported
+                }
+            }
+            if (temporary) {
+                FileUtils.delete(cloneDirectory.toFile(), FileUtils.RECURSIVE | FileUtils.RETRY | FileUtils.IGNORE_ERRORS);
+            }
+        }
+        statistics.getMetrics().writeNextTo(outputFile);
+        return statistics;
+    }
+
+    /**
+     * Names of the repositories in the report, the last part of the URL, made unique by the position in the list.
+     */
+    static List<String> names(List<String> urls) {
+        List<String> names = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = urls.get(i).replaceAll("[/\\\\]+$", "").replaceAll("\\.git$", "");
+            name = name.substring(Math.max(name.lastIndexOf('/'), Math.max(name.lastIndexOf('\\'), name.lastIndexOf(':'))) + 1)
+                    .replaceAll("[^A-Za-z0-9._-]", "_");
+            if (name.isEmpty() || name.startsWith(".")) {
+                name = "repo" + name;
+            }
+            if (!used.add(name)) {
+                name = name + "-" + (i + 1);
+                used.add(name);
+            }
+            names.add(name);
+        }
+        return names;
+    }
+
+    private static Path fetch(String url, Path gitDir, ScanOptions options) throws Exception {
+        int timeout = (int) Math.min(Integer.MAX_VALUE, options.getTimeoutSeconds());
+        if (Files.isDirectory(gitDir)) {
+            System.out.println("Fetching repository: " + url);
+            try (Git git = Git.open(gitDir.toFile())) {
+                git.fetch()
+                        .setRemote(url)
+                        .setRefSpecs(new RefSpec("+refs/heads/*:refs/heads/*"), new RefSpec("+refs/tags/*:refs/tags/*"))
+                        .setRemoveDeletedRefs(true)
+                        .setTimeout(timeout)
+                        .call();
+            }
+            return gitDir;
+        }
+
+        System.out.println("Cloning repository: " + url);
+        // Cloned next to the final place and moved there when complete, so a failed clone is never taken for a clone
+        Path partial = gitDir.resolveSibling(gitDir.getFileName() + PARTIAL_CLONE);
+        FileUtils.delete(partial.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+
+        // Set up SSH session factory with the private key
+        /*SshSessionFactory.setInstance(new OpenSshSessionFactory() {
+            @Override
+            protected void configure(OpenSshConfig.Host host, Session session) {
+                // Specify your private key file here
+                session.addIdentity("/Users/asgupta6/.ssh"); // Path to your private SSH key
+            }
+        });*/
+
+        try {
+            // Only the files of the clone are used, the repository is opened again for the scan
+            Git.cloneRepository()
+                    .setURI(url)
+                    .setBare(true)
+                    .setDirectory(partial.toFile())
+                    .setTimeout(timeout)
+                    .call()
+                    .close();
+            System.out.println("Repository cloned to " + gitDir);
+        } catch (Exception e) {
+            FileUtils.delete(partial.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING | FileUtils.IGNORE_ERRORS);
+            throw e;
+        }
+        Files.move(partial, gitDir, StandardCopyOption.ATOMIC_MOVE);
+        return gitDir;
+    }
+
+    // The findings go to a jsonl spool and are read back when the repositories before this one are in the report
+    private static RepositoryScan scan(Path gitDir, String name, ScanRules rules, String ref, int threads) throws Exception {
+        Path spool = Files.createTempFile("siscan-" + name + "-", ".jsonl");
+        try (Repository repository = GitTreeScanner.openRepository(gitDir.toString());
+             ReportGenerator report = new ReportGenerator(Files.newBufferedWriter(spool, StandardCharsets.UTF_8), ReportFormat.JSONL)) {
+            System.out.println("Scanning repository: " + name);
+            return new RepositoryScan(spool, GitTreeScanner.scanTree(repository, ref, Paths.get(name), rules, threads, report));
+        } catch (Exception e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+    }
+
+    private static void merge(Path spool, ReportGenerator report) throws IOException {
+        try (FindingReader reader = new FindingReader(spool)) {
+            List<Finding> batch = new ArrayList<>();
+            Finding finding;
+            while ((finding = reader.next()) != null) {
+                batch.add(finding);
+                if (batch.size() == MERGE_BATCH) {
+                    report.addFileFindings(report.reserveSequence(), batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                report.addFileFindings(report.reserveSequence(), batch);
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    private static <T> T unchecked(Step<T> step) {
+        try {
+            return step.run();
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.scan.sensitiveinfo;
+
+import org.eclipse.jgit.ignore.IgnoreNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Collects the files of a directory tree that the rules let through.
+ *
+ * Ignored directories are skipped whole while walking, so build output and dependency directories
+ * are never listed. Optionally the .gitignore files of the tree and .git/info/exclude are honored
+ * too, with the same precedence as Git: the rules of the deepest .gitignore that decide win.
+ * Archives are listed as well when their entries are scanned.
+ */
+class RepositoryWalker extends SimpleFileVisitor<Path> {
+
+    private static class GitIgnore {
+        private final Path directory;
+        private final IgnoreNode rules;
+
+        GitIgnore(Path directory, IgnoreNode rules) {
+            this.directory = directory;
+            this.rules = rules;
+        }
+    }
+
+    private final Path root;
+    private final ScanRules rules;
+    private final boolean honorGitignore;
+    private final boolean archives;
+    private final ScanStatistics statistics;
+    private final List<Path> files = new ArrayList<>();
+    private final Deque<GitIgnore> gitignores = new ArrayDeque<>();
+
+    private RepositoryWalker(Path root, ScanRules rules, boolean honorGitignore, boolean archives, ScanStatistics statistics) {
+        this.root = root;
+        this.rules = rules;
+        this.honorGitignore = honorGitignore;
+        this.archives = archives;
+        this.statistics = statistics;
+    }
+
+    /**
+     * The files below root to scan, in path order.
+     */
+    static List<Path> collectFiles(Path root, ScanRules rules, boolean honorGitignore, boolean archives,
+                                   ScanStatistics statistics) throws IOException {
+        RepositoryWalker walker = new RepositoryWalker(root, rules, honorGitignore, archives, statistics);
+        Files.walkFileTree(root, walker);
+        walker.files.sort(null);
+        return walker.files;
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+        if (!directory.equals(root) && (rules.isIgnoredDirectory(directory) || isGitIgnored(directory, true))) {
+            statistics.recordPrunedDirectory();
+            return FileVisitResult.SKIP_SUBTREE;
+        }
+        if (honorGitignore) {
+            IgnoreNode ignoreRules = new IgnoreNode();
+            if (directory.equals(root)) {
+                parse(ignoreRules, directory.resolve(".git").resolve("info").resolve("exclude"));
+            }
+            parse(ignoreRules, directory.resolve(".gitignore"));
+            if (!ignoreRules.getRules().isEmpty()) {
+                gitignores.push(new GitIgnore(directory, ignoreRules));
+            }
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+        // Like Files.walk, links to files are scanned but links to directories are not followed
+        boolean regularFile = attributes.isRegularFile() || (attributes.isSymbolicLink() && Files.isRegularFile(file));
+        if (regularFile
+                && !rules.isIgnoredPath(file)
+                // Check if the file has a valid extension based on the property file
+                && (rules.isSupportedFileType(file) || (archives && ArchiveScanner.isArchive(file)))
+                && !isGitIgnored(file, false)) {
+            files.add(file);
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException e) {
+        System.err.println("Skipping unreadable path " + file + ": " + e.getMessage());
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+        if (!gitignores.isEmpty() && gitignores.peek().directory.equals(directory)) {
+            gitignores.pop();
+        }
+        if (e != null) {
+            System.err.println("Skipping unreadable directory " + directory + ": " + e.getMessage());
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    private boolean isGitIgnored(Path path, boolean isDirectory) {
+        for (GitIgnore gitignore : gitignores) {
+            String relativePath = gitignore.directory.relativize(path).toString().replace(File.separatorChar, '/');
+            Boolean ignored = gitignore.rules.checkIgnored(relativePath, isDirectory);
+            if (ignored != null) {
+                return ignored;
+            }
+        }
+        return false;
+    }
+
+    private static void parse(IgnoreNode ignoreRules, Path file) throws IOException {
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                ignoreRules.parse(in);
+            }
+        }
+    }
+}
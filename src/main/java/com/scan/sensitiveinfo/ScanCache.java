@@ -0,0 +1,242 @@
+package com.scan.sensitiveinfo;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * On-disk cache of the findings of every scanned file, so that a rescan only reads and analyzes the
+ * files that changed since the last run.
+ *
+ * An entry is matched by path, size and modification time without reading the file. When the time
+ * changed but the content hash is the same, the cached findings are still used. All entries are
+ * dropped when the cache was written with another rules version.
+ *
+ * The cache file is replaced atomically while holding a lock file, and a writer merges the entries
+ * another run saved in the meantime, so several runs can share one cache.
+ */
+public class ScanCache {
+
+    private static final int MAGIC = 0x53495343;
+    private static final int FORMAT_VERSION = 2;
+    static final int HASH_LENGTH = 16;
+    private static final int MAX_STRING_LENGTH = 1 << 24;
+
+    // A file changed within this many milliseconds of the scan may change again without a new
+    // modification time, its entry is always verified by content
+    private static final long RACY_WINDOW_MILLIS = 2000;
+    private static final long UNTRUSTED_TIME = -1;
+
+    // FileLock does not guard against threads of the same JVM
+    private static final ConcurrentMap<Path, Object> SAVE_LOCKS = new ConcurrentHashMap<>();
+
+    private static class Entry {
+        private final long size;
+        private final long modified;
+        private final byte[] contentHash;
+        private final List<Finding> findings;
+
+        Entry(long size, long modified, byte[] contentHash, List<Finding> findings) {
+            this.size = size;
+            this.modified = modified;
+            this.contentHash = contentHash;
+            this.findings = findings;
+        }
+    }
+
+    private final Path cacheFile;
+    private final String rulesVersion;
+    private final long openedAt = System.currentTimeMillis();
+    private final ConcurrentMap<String, Entry> entries;
+    private final Set<String> visited = ConcurrentHashMap.newKeySet();
+    private final Set<String> updated = ConcurrentHashMap.newKeySet();
+
+    private ScanCache(Path cacheFile, String rulesVersion, Map<String, Entry> entries) {
+        this.cacheFile = cacheFile;
+        this.rulesVersion = rulesVersion;
+        this.entries = new ConcurrentHashMap<>(entries);
+    }
+
+    public static ScanCache open(Path cacheFile, String rulesVersion) {
+        return new ScanCache(cacheFile, rulesVersion, read(cacheFile, rulesVersion));
+    }
+
+    public static byte[] hash(byte[] content) {
+        try {
+            return Arrays.copyOf(MessageDigest.getInstance("SHA-256").digest(content), HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Findings of a file whose size and modification time did not change, null when the file has to be read.
+     */
+    public List<Finding> lookup(String path, long size, long modified) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.size != size || entry.modified == UNTRUSTED_TIME || entry.modified != modified) {
+            return null;
+        }
+        visited.add(path);
+        return entry.findings;
+    }
+
+    /**
+     * Findings of a file whose content did not change, null when the file has to be scanned.
+     */
+    public List<Finding> lookup(String path, long size, long modified, byte[] contentHash) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.size != size || !Arrays.equals(entry.contentHash, contentHash)) {
+            return null;
+        }
+        // Only the time changed, remember the new one so that the next run takes the fast path
+        store(path, size, modified, contentHash, entry.findings);
+        return entry.findings;
+    }
+
+    public void store(String path, long size, long modified, byte[] contentHash, List<Finding> findings) {
+        long trustedModified = modified >= openedAt - RACY_WINDOW_MILLIS ? UNTRUSTED_TIME : modified;
+        entries.put(path, new Entry(size, trustedModified, contentHash, findings));
+        visited.add(path);
+        updated.add(path);
+    }
+
+    /**
+     * Writes the cache. Entries below root that were not seen in this run belong to deleted files and
+     * are dropped, entries of other trees saved by other runs are kept.
+     */
+    public void save(String root) throws IOException {
+        Path target = cacheFile.toAbsolutePath().normalize();
+        Path lockFile = target.resolveSibling(target.getFileName() + ".lock");
+        synchronized (SAVE_LOCKS.computeIfAbsent(target, path -> new Object())) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    writeMerged(target, root);
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    // Merges the entries of this run into the saved ones, the caller holds the lock
+    private void writeMerged(Path target, String root) throws IOException {
+        Map<String, Entry> merged = new TreeMap<>(read(target, rulesVersion));
+        merged.keySet().removeIf(path -> isBelow(path, root) && !visited.contains(path));
+        entries.forEach((path, entry) -> {
+            if (updated.contains(path) || (visited.contains(path) && !merged.containsKey(path))) {
+                merged.put(path, entry);
+            }
+        });
+
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            write(temporary, merged);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static boolean isBelow(String path, String root) {
+        return path.equals(root) || path.startsWith(root.endsWith(File.separator) ? root : root + File.separator);
+    }
+
+    private void write(Path file, Map<String, Entry> cached) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, rulesVersion);
+            out.writeInt(cached.size());
+            for (Map.Entry<String, Entry> cachedFile : cached.entrySet()) {
+                Entry entry = cachedFile.getValue();
+                writeString(out, cachedFile.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                out.write(entry.contentHash);
+                out.writeInt(entry.findings.size());
+                for (Finding finding : entry.findings) {
+                    // Empty for the file itself, the findings of an archive name its entries
+                    writeString(out, finding.getFile().equals(cachedFile.getKey()) ? "" : finding.getFile());
+                    writeString(out, finding.getRule());
+                    writeString(out, finding.getMessage());
+                    out.writeInt(finding.getLine());
+                    writeString(out, finding.getFingerprint());
+                }
+            }
+        }
+    }
+
+    // A missing, unreadable or outdated cache is treated as empty
+    private static Map<String, Entry> read(Path file, String rulesVersion) {
+        Map<String, Entry> cached = new HashMap<>();
+        if (!Files.isRegularFile(file)) {
+            return cached;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !rulesVersion.equals(readString(in))) {
+                return cached;
+            }
+            // Every entry and every finding takes more than a byte, a count beyond the size of the file is corrupt
+            long fileSize = Files.size(file);
+            int count = readCount(in, fileSize);
+            for (int i = 0; i < count; i++) {
+                String path = readString(in);
+                long size = in.readLong();
+                long modified = in.readLong();
+                byte[] contentHash = new byte[HASH_LENGTH];
+                in.readFully(contentHash);
+                int findingCount = readCount(in, fileSize);
+                List<Finding> findings = new ArrayList<>(findingCount);
+                for (int f = 0; f < findingCount; f++) {
+                    String findingFile = readString(in);
+                    String rule = readString(in);
+                    String message = readString(in);
+                    int line = in.readInt();
+                    findings.add(new Finding(rule, message, findingFile.isEmpty() ? path : findingFile, line, readString(in)));
+                }
+                cached.put(path, new Entry(size, modified, contentHash, findings));
+            }
+            return cached;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable scan cache " + file + ": " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    private static int readCount(DataInputStream in, long limit) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > limit) {
+            throw new IOException("Corrupt count " + count);
+        }
+        return count;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,345 @@
+package com.scan.sensitiveinfo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time of a scan goes: time per phase, bytes and files per pre-filter outcome, the slowest
+ * files, how often each check ran and hit, and the findings per rule.
+ *
+ * The counters are LongAdders and each worker thread keeps its own list of slowest files, so workers
+ * never wait on each other to record. Checks done per line are counted per file by a
+ * {@link CheckCounter} and added once. The metrics are written next to the report as JSON and in the
+ * Prometheus text format.
+ */
+public class ScanMetrics {
+
+    public enum Phase {
+        WALK, READ, MATCH, PARSE, ANALYZE;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Check {
+        /** Keyword pass over a whole file, a hit lets the file through to the line checks. */
+        KEYWORD_PREFILTER("keyword-prefilter"),
+        /** Keyword check of a Java line. */
+        KEYWORDS("keywords"),
+        /** Check of a Java line for calls of a getter returning a sensitive field. */
+        SENSITIVE_GETTERS("sensitive-getters"),
+        LOG_PATTERNS("log-patterns"),
+        IGNORE_VARIABLES("ignore-variables"),
+        /** Check of a log statement for a sensitive field name. */
+        FIELDS_IN_LOG_STATEMENTS("fields-in-log-statements"),
+        /** Entropy check of a base64 or hex string. */
+        ENTROPY("entropy");
+
+        private final String label;
+
+        Check(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Counts the checks of one file on the thread scanning it.
+     */
+    public static class CheckCounter {
+        private final int[] evaluations = new int[Check.values().length];
+        private final int[] hits = new int[Check.values().length];
+
+        /**
+         * Counts one evaluation of the check and returns its result.
+         */
+        public boolean count(Check check, boolean hit) {
+            evaluations[check.ordinal()]++;
+            if (hit) {
+                hits[check.ordinal()]++;
+            }
+            return hit;
+        }
+    }
+
+    /**
+     * Splits the time of one thread into phases, each call charges the time since the previous one.
+     */
+    public class PhaseTimer {
+        private long mark = System.nanoTime();
+
+        public void record(Phase phase) {
+            long now = System.nanoTime();
+            recordPhase(phase, now - mark);
+            mark = now;
+        }
+    }
+
+    private static class FileTiming {
+        private final String file;
+        private final long nanos;
+
+        FileTiming(String file, long nanos) {
+            this.file = file;
+            this.nanos = nanos;
+        }
+    }
+
+    private static final int SLOWEST_FILES = 10;
+    private static final Comparator<FileTiming> BY_TIME = Comparator.comparingLong(timing -> timing.nanos);
+
+    private final long startedAt = System.nanoTime();
+    private final LongAdder[] phaseNanos = adders(Phase.values().length);
+    private final LongAdder[] evaluations = adders(Check.values().length);
+    private final LongAdder[] hits = adders(Check.values().length);
+    private final LongAdder bytesSkipped = new LongAdder();
+    private final LongAdder bytesMatched = new LongAdder();
+    private final LongAdder filesWithFindings = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> findingsPerRule = new ConcurrentHashMap<>();
+    private final Queue<PriorityQueue<FileTiming>> slowestPerThread = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<PriorityQueue<FileTiming>> slowest = ThreadLocal.withInitial(() -> {
+        PriorityQueue<FileTiming> files = new PriorityQueue<>(SLOWEST_FILES + 1, BY_TIME);
+        slowestPerThread.add(files);
+        return files;
+    });
+    private final ScanStatistics statistics;
+
+    ScanMetrics(ScanStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public PhaseTimer startTimer() {
+        return new PhaseTimer();
+    }
+
+    public void recordPhase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    void recordContent(int candidates, long bytes) {
+        (candidates == SensitiveInfoScanner.NO_HITS ? bytesSkipped : bytesMatched).add(bytes);
+    }
+
+    public void recordChecks(CheckCounter counter) {
+        for (int i = 0; i < counter.evaluations.length; i++) {
+            if (counter.evaluations[i] > 0) {
+                evaluations[i].add(counter.evaluations[i]);
+                hits[i].add(counter.hits[i]);
+            }
+        }
+    }
+
+    /**
+     * Records the total scan time and the findings of one file, on the thread that scanned it.
+     */
+    public void recordFile(String file, long nanos, List<Finding> findings) {
+        PriorityQueue<FileTiming> files = slowest.get();
+        if (files.size() < SLOWEST_FILES || files.peek().nanos < nanos) {
+            files.add(new FileTiming(file, nanos));
+            if (files.size() > SLOWEST_FILES) {
+                files.poll();
+            }
+        }
+        if (!findings.isEmpty()) {
+            filesWithFindings.increment();
+            for (Finding finding : findings) {
+                findingsPerRule.computeIfAbsent(finding.getRule(), rule -> new LongAdder()).increment();
+            }
+        }
+    }
+
+    /**
+     * Adds the metrics of another scan, once its workers are done. The duration stays the one of this run.
+     */
+    void add(ScanMetrics other) {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i].add(other.phaseNanos[i].sum());
+        }
+        for (int i = 0; i < evaluations.length; i++) {
+            evaluations[i].add(other.evaluations[i].sum());
+            hits[i].add(other.hits[i].sum());
+        }
+        bytesSkipped.add(other.getBytesSkipped());
+        bytesMatched.add(other.getBytesMatched());
+        filesWithFindings.add(other.getFilesWithFindings());
+        other.findingsPerRule.forEach((rule, count) -> findingsPerRule.computeIfAbsent(rule, key -> new LongAdder()).add(count.sum()));
+        PriorityQueue<FileTiming> files = new PriorityQueue<>(SLOWEST_FILES + 1, BY_TIME);
+        for (Map.Entry<String, Double> file : other.getSlowestFiles()) {
+            files.add(new FileTiming(file.getKey(), (long) (file.getValue() * 1e9)));
+        }
+        slowestPerThread.add(files);
+    }
+
+    public double getPhaseSeconds(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum() / 1e9;
+    }
+
+    public long getEvaluations(Check check) {
+        return evaluations[check.ordinal()].sum();
+    }
+
+    public long getHits(Check check) {
+        return hits[check.ordinal()].sum();
+    }
+
+    public long getBytesSkipped() {
+        return bytesSkipped.sum();
+    }
+
+    public long getBytesMatched() {
+        return bytesMatched.sum();
+    }
+
+    public long getFilesWithFindings() {
+        return filesWithFindings.sum();
+    }
+
+    public Map<String, Long> getFindingsPerRule() {
+        Map<String, Long> counts = new TreeMap<>();
+        findingsPerRule.forEach((rule, count) -> counts.put(rule, count.sum()));
+        return counts;
+    }
+
+    /**
+     * The slowest files of the run, slowest first. Only call this once the workers are done.
+     */
+    public List<Map.Entry<String, Double>> getSlowestFiles() {
+        List<FileTiming> all = new ArrayList<>();
+        for (PriorityQueue<FileTiming> files : slowestPerThread) {
+            all.addAll(files);
+        }
+        all.sort(BY_TIME.reversed());
+        List<Map.Entry<String, Double>> slowestFiles = new ArrayList<>();
+        for (FileTiming timing : all.subList(0, Math.min(SLOWEST_FILES, all.size()))) {
+            slowestFiles.add(new AbstractMap.SimpleImmutableEntry<>(timing.file, timing.nanos / 1e9));
+        }
+        return slowestFiles;
+    }
+
+    /**
+     * Writes the metrics to outputFile.metrics.json and outputFile.prom.
+     */
+    public void writeNextTo(String outputFile) throws IOException {
+        double duration = (System.nanoTime() - startedAt) / 1e9;
+        try (Writer out = newWriter(outputFile + ".metrics.json")) {
+            writeJson(out, duration);
+        }
+        try (Writer out = newWriter(outputFile + ".prom")) {
+            writePrometheus(out, duration);
+        }
+    }
+
+    private static Writer newWriter(String file) throws IOException {
+        return Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8);
+    }
+
+    void writeJson(Writer out, double duration) throws IOException {
+        out.write("{\"durationSeconds\":" + duration);
+
+        out.write(",\"phaseSeconds\":{");
+        for (Phase phase : Phase.values()) {
+            out.write((phase.ordinal() == 0 ? "" : ",") + ReportFormat.quote(phase.label()) + ":" + getPhaseSeconds(phase));
+        }
+
+        out.write("},\"files\":{\"scanned\":" + statistics.getFilesScanned()
+                + ",\"skipped\":" + statistics.getFilesWithoutKeywords()
+                + ",\"matched\":" + (statistics.getFilesScanned() - statistics.getFilesWithoutKeywords())
+                + ",\"parsed\":" + statistics.getJavaFilesParsed()
+                + ",\"cached\":" + statistics.getFilesFromCache()
+                + ",\"withFindings\":" + getFilesWithFindings() + "}");
+        out.write(",\"directoriesPruned\":" + statistics.getDirectoriesPruned());
+        out.write(",\"bytes\":{\"scanned\":" + (getBytesSkipped() + getBytesMatched())
+                + ",\"skipped\":" + getBytesSkipped()
+                + ",\"matched\":" + getBytesMatched() + "}");
+
+        out.write(",\"checks\":{");
+        for (Check check : Check.values()) {
+            out.write((check.ordinal() == 0 ? "" : ",") + ReportFormat.quote(check.label)
+                    + ":{\"evaluations\":" + getEvaluations(check) + ",\"hits\":" + getHits(check) + "}");
+        }
+
+        out.write("},\"findings\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> rule : getFindingsPerRule().entrySet()) {
+            out.write((first ? "" : ",") + ReportFormat.quote(rule.getKey()) + ":" + rule.getValue());
+            first = false;
+        }
+
+        out.write("},\"slowestFiles\":[");
+        first = true;
+        for (Map.Entry<String, Double> file : getSlowestFiles()) {
+            out.write((first ? "" : ",") + "{\"file\":" + ReportFormat.quote(file.getKey()) + ",\"seconds\":" + file.getValue() + "}");
+            first = false;
+        }
+        out.write("]}\n");
+    }
+
+    void writePrometheus(Writer out, double duration) throws IOException {
+        metric(out, "siscan_scan_duration_seconds", "gauge", "Wall clock time of the scan.");
+        out.write("siscan_scan_duration_seconds " + duration + "\n");
+
+        metric(out, "siscan_phase_seconds_total", "counter", "Time spent in each phase, summed over the worker threads.");
+        for (Phase phase : Phase.values()) {
+            out.write("siscan_phase_seconds_total{phase=\"" + phase.label() + "\"} " + getPhaseSeconds(phase) + "\n");
+        }
+
+        metric(out, "siscan_files_total", "counter", "Files by the outcome of the keyword pre-filter.");
+        out.write("siscan_files_total{state=\"skipped\"} " + statistics.getFilesWithoutKeywords() + "\n");
+        out.write("siscan_files_total{state=\"matched\"} " + (statistics.getFilesScanned() - statistics.getFilesWithoutKeywords()) + "\n");
+        out.write("siscan_files_total{state=\"cached\"} " + statistics.getFilesFromCache() + "\n");
+        metric(out, "siscan_files_parsed_total", "counter", "Java files parsed.");
+        out.write("siscan_files_parsed_total " + statistics.getJavaFilesParsed() + "\n");
+        metric(out, "siscan_files_with_findings_total", "counter", "Files with at least one finding.");
+        out.write("siscan_files_with_findings_total " + getFilesWithFindings() + "\n");
+        metric(out, "siscan_directories_pruned_total", "counter", "Ignored directories skipped without walking them.");
+        out.write("siscan_directories_pruned_total " + statistics.getDirectoriesPruned() + "\n");
+
+        metric(out, "siscan_bytes_total", "counter", "Bytes by the outcome of the keyword pre-filter.");
+        out.write("siscan_bytes_total{state=\"skipped\"} " + getBytesSkipped() + "\n");
+        out.write("siscan_bytes_total{state=\"matched\"} " + getBytesMatched() + "\n");
+
+        metric(out, "siscan_check_evaluations_total", "counter", "Evaluations of each check.");
+        for (Check check : Check.values()) {
+            out.write("siscan_check_evaluations_total{check=\"" + check.label + "\"} " + getEvaluations(check) + "\n");
+        }
+        metric(out, "siscan_check_hits_total", "counter", "Evaluations of each check that matched.");
+        for (Check check : Check.values()) {
+            out.write("siscan_check_hits_total{check=\"" + check.label + "\"} " + getHits(check) + "\n");
+        }
+
+        metric(out, "siscan_findings_total", "counter", "Findings per rule.");
+        for (Map.Entry<String, Long> rule : getFindingsPerRule().entrySet()) {
+            out.write("siscan_findings_total{rule=\"" + label(rule.getKey()) + "\"} " + rule.getValue() + "\n");
+        }
+
+        metric(out, "siscan_slowest_file_seconds", "gauge", "Scan time of the slowest files.");
+        for (Map.Entry<String, Double> file : getSlowestFiles()) {
+            out.write("siscan_slowest_file_seconds{file=\"" + label(file.getKey()) + "\"} " + file.getValue() + "\n");
+        }
+    }
+
+    private static void metric(Writer out, String name, String type, String help) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static String label(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,460 @@
+package com.scan.sensitiveinfo;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line options of a scan run.
+ * Positional arguments are kept in the order given, flags are passed as --name=value.
+ */
+public class ScanOptions {
+
+    private final List<String> arguments = new ArrayList<>();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private ReportFormat format = ReportFormat.TEXT;
+    private Path cacheFile;
+    private Path indexFile;
+    private boolean git;
+    private boolean gitignore;
+    private String ref = "HEAD";
+    private String base;
+    private int history;
+    private int servePort;
+    private int jobs = 2;
+    private int queuedJobs = 100;
+    private long timeoutSeconds = 600;
+    private boolean repositories;
+    private Path repositoriesFile;
+    private int fetches = 4;
+    private Path cloneDirectory;
+    private boolean archives;
+    private int archiveDepth = 3;
+    private long archiveSize = 256L << 20;
+    private ScanShard shard;
+    private String mergeReport;
+    private boolean staged;
+
+    public static ScanOptions parse(String... args) {
+        ScanOptions options = new ScanOptions();
+        boolean optionsEnded = false;
+        for (String arg : args) {
+            if (!optionsEnded && arg.equals("--")) {
+                // Everything after -- is an argument, e.g. a file named --foo
+                optionsEnded = true;
+            } else if (!optionsEnded && arg.startsWith("--")) {
+                int separator = arg.indexOf('=');
+                String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+                String value = separator < 0 ? "true" : arg.substring(separator + 1);
+                options.set(name, value);
+            } else {
+                options.arguments.add(arg);
+            }
+        }
+        if (options.staged && (options.git || options.shard != null || options.repositories)) {
+            throw new IllegalArgumentException("--staged scans the Git index against HEAD, not with --git, --ref, --base, --history, --shard or --repos");
+        }
+        if (options.mergeReport != null && (options.shard != null || options.staged || options.repositories || options.servePort > 0)) {
+            throw new IllegalArgumentException("--merge only merges partial reports, not with --shard, --staged, --repos or --serve");
+        }
+        if (options.shard != null) {
+            if (options.base != null || options.history > 0) {
+                throw new IllegalArgumentException("--shard works with directory and --git tree scans, not with --base or --history");
+            }
+            // The report of a shard is merged with the other shards, the merge writes the final format
+            options.format = ReportFormat.PARTIAL;
+        }
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "threads":
+                setThreads(Integer.parseInt(value));
+                break;
+            case "format":
+                setFormat(ReportFormat.fromName(value));
+                break;
+            case "cache":
+                setCacheFile(Paths.get(value));
+                break;
+            case "index":
+                setIndexFile(Paths.get(value));
+                break;
+            case "gitignore":
+                setGitignore(Boolean.parseBoolean(value));
+                break;
+            case "git":
+                setGit(Boolean.parseBoolean(value));
+                break;
+            case "ref":
+                setRef(value);
+                setGit(true);
+                break;
+            case "base":
+                setBase(value);
+                setGit(true);
+                break;
+            case "history":
+                setHistory(Integer.parseInt(value));
+                setGit(true);
+                break;
+            case "serve":
+                setServePort(Integer.parseInt(value));
+                break;
+            case "jobs":
+                setJobs(Integer.parseInt(value));
+                break;
+            case "queue":
+                setQueuedJobs(Integer.parseInt(value));
+                break;
+            case "timeout":
+                setTimeoutSeconds(Long.parseLong(value));
+                break;
+            case "archives":
+                setArchives(Boolean.parseBoolean(value));
+                break;
+            case "archive-depth":
+                setArchiveDepth(Integer.parseInt(value));
+                setArchives(true);
+                break;
+            case "archive-size":
+                setArchiveSize(Long.parseLong(value) << 20);
+                setArchives(true);
+                break;
+            case "shard":
+                setShard(ScanShard.parse(value));
+                break;
+            case "merge":
+                if (value.equals("true")) {
+                    throw new IllegalArgumentException("--merge needs the report to write, --merge=REPORT");
+                }
+                setMergeReport(value);
+                break;
+            case "staged":
+                setStaged(Boolean.parseBoolean(value));
+                break;
+            case "repos":
+                // --repos alone scans the repositories of git_repos.properties
+                setRepositories(!value.equals("false"));
+                if (!value.equals("true") && !value.equals("false")) {
+                    setRepositoriesFile(Paths.get(value));
+                }
+                break;
+            case "fetches":
+                setFetches(Integer.parseInt(value));
+                break;
+            case "clone-dir":
+                setCloneDirectory(Paths.get(value));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    public String getArgument(int index) {
+        if (index >= arguments.size()) {
+            throw new IllegalArgumentException("Missing argument #" + (index + 1));
+        }
+        return arguments.get(index);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public ScanOptions setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("--threads must be at least 1");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    public ScanOptions setFormat(ReportFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Incremental scan cache, null when every file is scanned.
+     */
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+
+    public ScanOptions setCacheFile(Path cacheFile) {
+        this.cacheFile = cacheFile;
+        return this;
+    }
+
+    /**
+     * Saved getter index, reused for the unchanged files. Null when the index is only kept in memory.
+     */
+    public Path getIndexFile() {
+        return indexFile;
+    }
+
+    public ScanOptions setIndexFile(Path indexFile) {
+        this.indexFile = indexFile;
+        return this;
+    }
+
+    /**
+     * Skip the files and directories the .gitignore files of the scanned tree ignore.
+     */
+    public boolean isGitignore() {
+        return gitignore;
+    }
+
+    public ScanOptions setGitignore(boolean gitignore) {
+        this.gitignore = gitignore;
+        return this;
+    }
+
+    /**
+     * Scan a commit from the object database of the repository instead of the files on disk.
+     */
+    public boolean isGit() {
+        return git;
+    }
+
+    public ScanOptions setGit(boolean git) {
+        this.git = git;
+        return this;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public ScanOptions setRef(String ref) {
+        this.ref = ref;
+        return this;
+    }
+
+    /**
+     * Only the lines added between this ref and --ref are scanned, null for a full scan.
+     */
+    public String getBase() {
+        return base;
+    }
+
+    public ScanOptions setBase(String base) {
+        this.base = base;
+        return this;
+    }
+
+    /**
+     * Number of commits from --ref whose added lines are scanned, 0 for a scan of the tree.
+     */
+    public int getHistory() {
+        return history;
+    }
+
+    public ScanOptions setHistory(int history) {
+        if (history < 1) {
+            throw new IllegalArgumentException("--history must be at least 1");
+        }
+        this.history = history;
+        return this;
+    }
+
+    /**
+     * Port of the local scan server, 0 to run a single scan.
+     */
+    public int getServePort() {
+        return servePort;
+    }
+
+    public ScanOptions setServePort(int servePort) {
+        if (servePort < 1 || servePort > 65535) {
+            throw new IllegalArgumentException("--serve must be a port number");
+        }
+        this.servePort = servePort;
+        return this;
+    }
+
+    /**
+     * Scan jobs the server runs at the same time, or repositories scanned at the same time with --repos.
+     */
+    public int getJobs() {
+        return jobs;
+    }
+
+    public ScanOptions setJobs(int jobs) {
+        if (jobs < 1) {
+            throw new IllegalArgumentException("--jobs must be at least 1");
+        }
+        this.jobs = jobs;
+        return this;
+    }
+
+    /**
+     * Scan jobs waiting for a free slot, the server refuses further jobs.
+     */
+    public int getQueuedJobs() {
+        return queuedJobs;
+    }
+
+    public ScanOptions setQueuedJobs(int queuedJobs) {
+        if (queuedJobs < 0) {
+            throw new IllegalArgumentException("--queue must not be negative");
+        }
+        this.queuedJobs = queuedJobs;
+        return this;
+    }
+
+    /**
+     * Time a server job may run before it is cancelled.
+     */
+    public long getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public ScanOptions setTimeoutSeconds(long timeoutSeconds) {
+        if (timeoutSeconds < 1) {
+            throw new IllegalArgumentException("--timeout must be at least 1 second");
+        }
+        this.timeoutSeconds = timeoutSeconds;
+        return this;
+    }
+
+    /**
+     * Scan the entries of zip, jar, war, ear, tar and tar.gz files as well.
+     */
+    public boolean isArchives() {
+        return archives;
+    }
+
+    public ScanOptions setArchives(boolean archives) {
+        this.archives = archives;
+        return this;
+    }
+
+    /**
+     * Levels of archives scanned, 1 for the archives in the tree but not the archives inside them.
+     */
+    public int getArchiveDepth() {
+        return archiveDepth;
+    }
+
+    public ScanOptions setArchiveDepth(int archiveDepth) {
+        if (archiveDepth < 1) {
+            throw new IllegalArgumentException("--archive-depth must be at least 1");
+        }
+        this.archiveDepth = archiveDepth;
+        return this;
+    }
+
+    /**
+     * Bytes of content read from one archive, nested archives included, before its scan is stopped.
+     */
+    public long getArchiveSize() {
+        return archiveSize;
+    }
+
+    public ScanOptions setArchiveSize(long archiveSize) {
+        if (archiveSize < 1) {
+            throw new IllegalArgumentException("--archive-size must be at least 1 MB");
+        }
+        this.archiveSize = archiveSize;
+        return this;
+    }
+
+    /**
+     * The part of the files this process scans, null for all of them.
+     */
+    public ScanShard getShard() {
+        return shard;
+    }
+
+    public ScanOptions setShard(ScanShard shard) {
+        this.shard = shard;
+        return this;
+    }
+
+    /**
+     * Report the partial reports given as arguments are merged into, null when scanning.
+     */
+    public String getMergeReport() {
+        return mergeReport;
+    }
+
+    public ScanOptions setMergeReport(String mergeReport) {
+        this.mergeReport = mergeReport;
+        return this;
+    }
+
+    /**
+     * Clone and scan the repositories listed in git_repos.properties, or in the repositories file, instead of one path.
+     */
+    public boolean isRepositories() {
+        return repositories;
+    }
+
+    public ScanOptions setRepositories(boolean repositories) {
+        this.repositories = repositories;
+        return this;
+    }
+
+    /**
+     * Properties file with the repo.url.N entries to scan, null for git_repos.properties.
+     */
+    public Path getRepositoriesFile() {
+        return repositoriesFile;
+    }
+
+    public ScanOptions setRepositoriesFile(Path repositoriesFile) {
+        this.repositoriesFile = repositoriesFile;
+        return this;
+    }
+
+    /**
+     * Repositories cloned or fetched at the same time with --repos.
+     */
+    public int getFetches() {
+        return fetches;
+    }
+
+    public ScanOptions setFetches(int fetches) {
+        if (fetches < 1) {
+            throw new IllegalArgumentException("--fetches must be at least 1");
+        }
+        this.fetches = fetches;
+        return this;
+    }
+
+    /**
+     * Directory keeping the bare clones of --repos between runs, null for a temporary directory.
+     */
+    public Path getCloneDirectory() {
+        return cloneDirectory;
+    }
+
+    public ScanOptions setCloneDirectory(Path cloneDirectory) {
+        this.cloneDirectory = cloneDirectory;
+        return this;
+    }
+
+    /**
+     * Scan the lines staged in the Git index against HEAD, for a pre-commit hook.
+     */
+    public boolean isStaged() {
+        return staged;
+    }
+
+    public ScanOptions setStaged(boolean staged) {
+        this.staged = staged;
+        return this;
+    }
+}
@@ -0,0 +1,275 @@
+package com.scan.sensitiveinfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the scan configuration with every pattern compiled up front.
+ * A single instance is loaded per run and shared by all scan workers.
+ */
+public final class ScanRules {
+
+    // Back-references are numbered per pattern, such patterns cannot be merged into one alternation
+    private static final Pattern GLOB_CHARACTERS = Pattern.compile("[*?\\[{]");
+
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(\\d|k<)");
+
+    // Bump when a change to the checks makes findings of earlier runs outdated
+    private static final String CHECKS_VERSION = "5";
+
+    private final List<String> sensitiveKeywords;
+    private final Set<String> sensitiveFieldNames;
+    private final KeywordMatcher sensitiveMatcher;
+    private final List<Pattern> logPatterns;
+    private final List<Pattern> ignoreVariables;
+    private final List<String> ignorePaths;
+    private final KeywordMatcher ignoredSubstrings;
+    private final List<PathMatcher> ignoredGlobs = new ArrayList<>();
+    private final List<PathMatcher> ignoredDirectoryGlobs = new ArrayList<>();
+    private final List<String> fileTypes;
+    private final Set<String> fileExtensions = new HashSet<>();
+    private final List<String> otherFileTypes = new ArrayList<>();
+    private final EntropyDetector entropyDetector;
+    private final String version;
+
+    public ScanRules(List<String> sensitiveKeywords, List<Pattern> logPatterns, List<Pattern> ignoreVariables,
+                     List<String> ignorePaths, List<String> fileTypes) {
+        this(sensitiveKeywords, logPatterns, ignoreVariables, ignorePaths, fileTypes, EntropyDetector.DISABLED);
+    }
+
+    ScanRules(List<String> sensitiveKeywords, List<Pattern> logPatterns, List<Pattern> ignoreVariables,
+              List<String> ignorePaths, List<String> fileTypes, EntropyDetector entropyDetector) {
+        this.sensitiveKeywords = Collections.unmodifiableList(new ArrayList<>(sensitiveKeywords));
+        this.sensitiveFieldNames = Collections.unmodifiableSet(new HashSet<>(sensitiveKeywords));
+        this.sensitiveMatcher = new KeywordMatcher(sensitiveKeywords, false);
+        this.logPatterns = combine(logPatterns);
+        this.ignoreVariables = combine(ignoreVariables);
+        this.ignorePaths = Collections.unmodifiableList(new ArrayList<>(ignorePaths));
+        this.ignoredSubstrings = compileIgnorePaths(ignorePaths);
+        this.fileTypes = Collections.unmodifiableList(new ArrayList<>(fileTypes));
+        for (String fileType : fileTypes) {
+            (fileType.startsWith(".") ? fileExtensions : otherFileTypes).add(fileType);
+        }
+        this.entropyDetector = entropyDetector;
+        this.version = fingerprint(CHECKS_VERSION, sensitiveKeywords, patternSources(logPatterns),
+                patternSources(ignoreVariables), ignorePaths, fileTypes, Collections.singletonList(entropyDetector));
+    }
+
+    /**
+     * Loads all rule files through {@link ConfigLoader} and compiles them.
+     */
+    public static ScanRules load() throws IOException {
+        ConfigLoader.loadSensitivePatternsConfig();
+        ConfigLoader.loadIgnorePathsConfig();
+        ConfigLoader.loadFileTypesConfig();
+        ConfigLoader.loadLogPatternsConfig();
+        ConfigLoader.loadIgnoreVariablesConfig();
+
+        return new ScanRules(ConfigLoader.getSensitivePatternsConfig(),
+                ConfigLoader.getLogPatterns(),
+                ConfigLoader.getIgnoreVariables(),
+                ConfigLoader.getIgnorePaths(),
+                ConfigLoader.getFileTypes(),
+                EntropyDetector.load());
+    }
+
+    /**
+     * Changes whenever any rule or the checks themselves change, used to invalidate cached findings.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public List<String> getSensitiveKeywords() {
+        return sensitiveKeywords;
+    }
+
+    public KeywordMatcher getSensitiveMatcher() {
+        return sensitiveMatcher;
+    }
+
+    EntropyDetector getEntropyDetector() {
+        return entropyDetector;
+    }
+
+    public boolean isSensitiveField(String fieldName) {
+        return sensitiveFieldNames.contains(fieldName);
+    }
+
+    public boolean isLogStatement(CharSequence statement) {
+        return findsAny(logPatterns, statement);
+    }
+
+    public boolean isIgnoredVariable(CharSequence line) {
+        return findsAny(ignoreVariables, line);
+    }
+
+    public List<String> getIgnorePaths() {
+        return ignorePaths;
+    }
+
+    public List<String> getFileTypes() {
+        return fileTypes;
+    }
+
+    /**
+     * An ignore path is a substring of the ignored paths, like "target/", or a glob when it contains
+     * any of *?[{, like "*.min.js" or "generated/**". Globs match the end of a path at a directory
+     * boundary. A glob ending with "/**" also matches the directory itself, so it can be skipped whole.
+     */
+    private KeywordMatcher compileIgnorePaths(List<String> ignorePaths) {
+        List<String> substrings = new ArrayList<>();
+        FileSystem fileSystem = FileSystems.getDefault();
+        for (String ignorePath : ignorePaths) {
+            if (!GLOB_CHARACTERS.matcher(ignorePath).find()) {
+                substrings.add(ignorePath);
+                continue;
+            }
+            PathMatcher glob = fileSystem.getPathMatcher("glob:**/" + ignorePath);
+            ignoredGlobs.add(glob);
+            ignoredDirectoryGlobs.add(ignorePath.endsWith("/**")
+                    ? fileSystem.getPathMatcher("glob:**/" + ignorePath.substring(0, ignorePath.length() - 3))
+                    : glob);
+        }
+        return new KeywordMatcher(substrings, false);
+    }
+
+    public boolean isIgnoredPath(Path path) {
+        if (ignoredSubstrings.containsAny(path.toString())) {
+            return true;
+        }
+        if (!ignoredGlobs.isEmpty()) {
+            if (matchesAny(ignoredGlobs, path)) {
+                return true;
+            }
+            // Paths that are not found by walking a tree, e.g. in a diff, may be below an ignored directory
+            for (Path directory = path.getParent(); directory != null; directory = directory.getParent()) {
+                if (matchesAny(ignoredDirectoryGlobs, directory)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True when every path below the directory is ignored, so it does not need to be walked at all.
+     */
+    public boolean isIgnoredDirectory(Path directory) {
+        return ignoredSubstrings.containsAny(directory.toString() + File.separator)
+                || matchesAny(ignoredDirectoryGlobs, directory);
+    }
+
+    /**
+     * File types starting with a dot are looked up by the extensions of the file name, others have to end the path.
+     */
+    public boolean isSupportedFileType(Path path) {
+        Path fileName = path.getFileName();
+        if (fileName == null) {
+            return false;
+        }
+        String name = fileName.toString();
+        for (int dot = name.indexOf('.'); dot >= 0; dot = name.indexOf('.', dot + 1)) {
+            if (fileExtensions.contains(name.substring(dot))) {
+                return true;
+            }
+        }
+        if (otherFileTypes.isEmpty()) {
+            return false;
+        }
+        String location = path.toString();
+        return otherFileTypes.stream().anyMatch(location::endsWith);
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean findsAny(List<Pattern> patterns, CharSequence input) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(input).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> patternSources(List<Pattern> patterns) {
+        return patterns.stream().map(pattern -> pattern.flags() + "/" + pattern.pattern()).collect(Collectors.toList());
+    }
+
+    private static String fingerprint(String checksVersion, List<?>... rules) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(checksVersion.getBytes(StandardCharsets.UTF_8));
+            for (List<?> rule : rules) {
+                digest.update((byte) 1);
+                for (Object value : rule) {
+                    digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+            }
+            return String.format("%032x", new BigInteger(1, Arrays.copyOf(digest.digest(), 16)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Merges the patterns into one alternation so that a line needs a single regex evaluation
+    private static List<Pattern> combine(List<Pattern> patterns) {
+        boolean mergeable = !patterns.isEmpty() && patterns.stream()
+                .allMatch(pattern -> pattern.flags() == 0 && !BACK_REFERENCE.matcher(pattern.pattern()).find());
+        if (!mergeable) {
+            return Collections.unmodifiableList(new ArrayList<>(patterns));
+        }
+        String alternation = patterns.stream()
+                .map(pattern -> "(?:" + stripWildcards(pattern.pattern()) + ")")
+                .collect(Collectors.joining("|"));
+        return Collections.singletonList(Pattern.compile(alternation));
+    }
+
+    // The rules are only used with find(), where a leading or trailing ".*" can always match the
+    // empty string. Dropping it gives the same result without scanning the rest of the line again.
+    static String stripWildcards(String regex) {
+        if (regex.contains("\\Q")) {
+            return regex;
+        }
+        String stripped = regex;
+        if (stripped.startsWith(".*") && (stripped.length() == 2 || "?+*{".indexOf(stripped.charAt(2)) < 0)) {
+            stripped = stripped.substring(2);
+        }
+        if (stripped.endsWith(".*") && !isEscaped(stripped, stripped.length() - 2)) {
+            stripped = stripped.substring(0, stripped.length() - 2);
+        }
+        return stripped;
+    }
+
+    private static boolean isEscaped(String regex, int index) {
+        int backslashes = 0;
+        for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+}
@@ -0,0 +1,432 @@
+package com.scan.sensitiveinfo;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the scanner resident and takes scan jobs over HTTP on the loopback interface. All jobs share
+ * one JVM with the classes of JavaParser and JGit loaded, the rules compiled and the JIT warmed up,
+ * so a small scan does not pay for a JVM start.
+ *
+ * POST /scan?path=PATH starts a scan and streams the report back while it is written. The other
+ * parameters are the options of {@link #JOB_PARAMETERS} without the dashes, options writing files
+ * such as cache or index are refused. The X-Scan-Job header of the response names the job.
+ * GET /jobs and GET /jobs/ID show the state of the jobs, DELETE /jobs/ID cancels one.
+ *
+ * Every request has to carry the token printed at start in the X-Scan-Token header, and name a
+ * loopback address in its Host and Origin headers, so that neither another local user nor a web
+ * page opened in a browser can start scans.
+ *
+ * A fixed number of jobs run at once and a bounded number wait for a free slot, further jobs are
+ * refused with 503. A job running longer than its timeout is cancelled. The rules are loaded once,
+ * the server has to be restarted to pick up changed property files.
+ */
+public class ScanServer {
+
+    enum State {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED, TIMED_OUT
+    }
+
+    private static final int FINISHED_JOBS_KEPT = 1000;
+
+    /**
+     * The options a request may set. They only select what is scanned and how it is reported,
+     * the options naming files the scan writes stay with the server.
+     */
+    static final Set<String> JOB_PARAMETERS = new TreeSet<>(Arrays.asList(
+            "base", "format", "git", "gitignore", "history", "ref", "timeout"));
+
+    static final String TOKEN_HEADER = "X-Scan-Token";
+
+    private final ScanRules rules;
+    private final ScanOptions defaults;
+    private final int threadsPerJob;
+    private final String token;
+    private final HttpServer server;
+    private final ExecutorService scheduler;
+    private final ScheduledExecutorService timeouts;
+    private final Semaphore slots;
+    private final AtomicLong jobIds = new AtomicLong();
+    private final Map<Long, Job> jobs = new LinkedHashMap<Long, Job>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+            return size() > FINISHED_JOBS_KEPT && eldest.getValue().isFinished();
+        }
+    };
+
+    /**
+     * A scan requested by one client, it writes its report to the response of the request.
+     */
+    private class Job implements Runnable {
+        private final long id;
+        private final ScanOptions options;
+        private final HttpExchange exchange;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile State state = State.QUEUED;
+        private volatile long findings;
+        private volatile String error;
+        private volatile Future<?> future;
+
+        Job(long id, ScanOptions options, HttpExchange exchange) {
+            this.id = id;
+            this.options = options;
+            this.exchange = exchange;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (this) {
+                if (state == State.QUEUED) {
+                    state = State.RUNNING;
+                }
+            }
+            ScheduledFuture<?> timeout = timeouts.schedule(() -> cancel(State.TIMED_OUT), options.getTimeoutSeconds(), TimeUnit.SECONDS);
+            ReportGenerator report = ReportGenerator.streaming(
+                    new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)), options.getFormat());
+            try {
+                report.setStatistics(scan(rules, options, report));
+                finish(State.DONE);
+            } catch (Exception e) {
+                if (finish(State.FAILED)) {
+                    error = String.valueOf(e);
+                    System.err.println("Scan job " + id + " failed: " + e);
+                }
+            } finally {
+                timeout.cancel(false);
+                // A cancelled job was interrupted, the report is still closed to end the response
+                Thread.interrupted();
+                try {
+                    report.close();
+                } catch (IOException e) {
+                    // The client went away
+                }
+                findings = report.getFindingCount();
+                exchange.close();
+                slots.release();
+            }
+        }
+
+        // Sets the final state unless the job has one already, true when it was set
+        synchronized boolean finish(State finalState) {
+            if (isFinished()) {
+                return false;
+            }
+            state = finalState;
+            return true;
+        }
+
+        boolean isFinished() {
+            return state != State.QUEUED && state != State.RUNNING;
+        }
+
+        boolean cancel(State reason) {
+            if (!finish(reason)) {
+                return false;
+            }
+            future.cancel(true);
+            if (started.compareAndSet(false, true)) {
+                // The job never ran, nobody else ends its response
+                exchange.close();
+                slots.release();
+            }
+            return true;
+        }
+
+        String toJson() {
+            return "{\"id\":" + id
+                    + ",\"state\":" + ReportFormat.quote(state.name().toLowerCase(Locale.ROOT))
+                    + ",\"path\":" + ReportFormat.quote(options.getArgument(0))
+                    + (state == State.RUNNING || state == State.QUEUED ? "" : ",\"findings\":" + findings)
+                    + (error == null ? "" : ",\"error\":" + ReportFormat.quote(error)) + "}";
+        }
+    }
+
+    private ScanServer(ScanRules rules, ScanOptions defaults) throws IOException {
+        this.rules = rules;
+        this.defaults = defaults;
+        this.threadsPerJob = Math.max(1, defaults.getThreads() / defaults.getJobs());
+        this.token = newToken();
+        this.scheduler = Executors.newFixedThreadPool(defaults.getJobs(), new ScanWorkers.NamedThreadFactory("scan-job"));
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(new ScanWorkers.NamedThreadFactory("scan-timeout"));
+        this.slots = new Semaphore(defaults.getJobs() + defaults.getQueuedJobs());
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), defaults.getServePort()), 0);
+        server.createContext("/scan", this::handleScan);
+        server.createContext("/jobs", this::handleJobs);
+        // Requests only queue a job or look one up, the jobs write their responses themselves
+        server.setExecutor(Executors.newCachedThreadPool(new ScanWorkers.NamedThreadFactory("scan-http")));
+    }
+
+    /**
+     * Starts a server on the port of options, whose thread, job and timeout settings are the defaults of the jobs.
+     */
+    public static ScanServer start(ScanOptions options) throws IOException {
+        ScanServer scanServer = new ScanServer(ScanRules.load(), options);
+        scanServer.server.start();
+        System.out.println("Scan server listening on http://" + scanServer.server.getAddress().getHostString()
+                + ":" + scanServer.server.getAddress().getPort());
+        System.out.println("Send the header \"" + TOKEN_HEADER + ": " + scanServer.token + "\" with every request");
+        return scanServer;
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Stops accepting requests and cancels the jobs that are still running.
+     */
+    public void stop() {
+        server.stop(0);
+        scheduler.shutdownNow();
+        timeouts.shutdownNow();
+    }
+
+    /**
+     * Runs one scan like the command line does with the same options, the report goes to report.
+     */
+    static ScanStatistics scan(ScanRules rules, ScanOptions options, ReportGenerator report) throws Exception {
+        String location = options.getArgument(0);
+        Path root = Paths.get(location);
+        if (!options.isGit()) {
+            return Scanner.scanDirectory(root, rules, options, report);
+        }
+        try (Repository repository = GitTreeScanner.openRepository(location)) {
+            if (options.getBase() != null) {
+                return GitDiffScanner.scanDiff(repository, options.getBase(), options.getRef(), root, rules,
+                        options.getThreads(), report, options.getIndexFile());
+            }
+            if (options.getHistory() > 0) {
+                return GitDiffScanner.scanHistory(repository, options.getRef(), options.getHistory(), root, rules,
+                        options.getThreads(), report);
+            }
+            return GitTreeScanner.scanTree(repository, options.getRef(), root, rules, options.getThreads(), report,
+                    options.getIndexFile(), options.getShard());
+        }
+    }
+
+    private void handleScan(HttpExchange exchange) throws IOException {
+        if (!authorize(exchange)) {
+            return;
+        }
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "Scans are started with POST\n");
+            return;
+        }
+        ScanOptions options;
+        try {
+            options = parseJob(exchange.getRequestURI().getRawQuery(), threadsPerJob, defaults.getTimeoutSeconds());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage() + "\n");
+            return;
+        }
+        if (!slots.tryAcquire()) {
+            respond(exchange, 503, "Too many scan jobs, try again later\n");
+            return;
+        }
+
+        Job job = new Job(jobIds.incrementAndGet(), options, exchange);
+        FutureTask<Void> task = new FutureTask<>(job, null);
+        job.future = task;
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        try {
+            exchange.getResponseHeaders().set("Content-Type", contentType(options.getFormat()));
+            exchange.getResponseHeaders().set("X-Scan-Job", String.valueOf(job.id));
+            // Length 0 streams the response in chunks
+            exchange.sendResponseHeaders(200, 0);
+        } catch (IOException e) {
+            job.cancel(State.CANCELLED);
+            throw e;
+        }
+        scheduler.execute(task);
+    }
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        if (!authorize(exchange)) {
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/jobs") || path.equals("/jobs/")) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Jobs are listed with GET\n");
+                return;
+            }
+            List<String> states = new ArrayList<>();
+            synchronized (jobs) {
+                jobs.values().forEach(job -> states.add(job.toJson()));
+            }
+            respond(exchange, 200, "[" + String.join(",\n", states) + "]\n");
+            return;
+        }
+
+        Job job;
+        try {
+            long id = Long.parseLong(path.substring("/jobs/".length()));
+            synchronized (jobs) {
+                job = jobs.get(id);
+            }
+        } catch (NumberFormatException e) {
+            job = null;
+        }
+        if (job == null) {
+            respond(exchange, 404, "No such job\n");
+        } else if ("GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 200, job.toJson() + "\n");
+        } else if ("DELETE".equals(exchange.getRequestMethod())) {
+            if (job.cancel(State.CANCELLED)) {
+                respond(exchange, 200, job.toJson() + "\n");
+            } else {
+                respond(exchange, 409, "The job has already finished\n");
+            }
+        } else {
+            respond(exchange, 405, "Jobs are read with GET and cancelled with DELETE\n");
+        }
+    }
+
+    // Answers a request that is not from a local client holding the token with 403, true when it may go on
+    private boolean authorize(HttpExchange exchange) throws IOException {
+        String refusal = checkCaller(exchange.getRequestHeaders(), token);
+        if (refusal == null) {
+            return true;
+        }
+        respond(exchange, 403, refusal + "\n");
+        return false;
+    }
+
+    /**
+     * Why a request with these headers is refused, null when it is accepted. A browser sends the Host a page
+     * resolved, which differs after DNS rebinding, and the Origin of the page that sent the request.
+     */
+    static String checkCaller(Headers headers, String token) {
+        String host = headers.getFirst("Host");
+        if (host == null || !isLoopback("http://" + host)) {
+            return "The Host header has to name the loopback address";
+        }
+        String origin = headers.getFirst("Origin");
+        if (origin != null && !isLoopback(origin)) {
+            return "Requests from " + origin + " are not accepted";
+        }
+        String sent = headers.getFirst(TOKEN_HEADER);
+        // Compared in constant time, the time taken does not tell how much of a guess was right
+        if (sent == null || !MessageDigest.isEqual(sent.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return "Missing or wrong " + TOKEN_HEADER + " header, the server prints the token when it starts";
+        }
+        return null;
+    }
+
+    private static boolean isLoopback(String url) {
+        try {
+            String host = new URI(url).getHost();
+            if (host == null) {
+                return false;
+            }
+            if (host.startsWith("[") && host.endsWith("]")) {
+                host = host.substring(1, host.length() - 1);
+            }
+            return host.equalsIgnoreCase("localhost") || host.equals("::1") || host.matches("127(\\.\\d{1,3}){3}");
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The options of a scan request, path is the directory or repository to scan and the other parameters are
+     * {@link #JOB_PARAMETERS}.
+     */
+    static ScanOptions parseJob(String query, int threads, long timeoutSeconds) {
+        List<String> args = new ArrayList<>();
+        args.add("--threads=" + threads);
+        args.add("--timeout=" + timeoutSeconds);
+        String path = null;
+        for (String parameter : query == null ? new String[0] : query.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int separator = parameter.indexOf('=');
+            String name = decode(separator < 0 ? parameter : parameter.substring(0, separator));
+            String value = separator < 0 ? "true" : decode(parameter.substring(separator + 1));
+            if (name.equals("path")) {
+                path = value;
+            } else if (JOB_PARAMETERS.contains(name)) {
+                args.add("--" + name + "=" + value);
+            } else {
+                throw new IllegalArgumentException(name + " is not a job parameter, jobs take path and " + String.join(", ", JOB_PARAMETERS));
+            }
+        }
+        if (path == null) {
+            throw new IllegalArgumentException("Missing parameter path");
+        }
+        // A path starting with dashes is still a path
+        args.add("--");
+        args.add(path);
+        return ScanOptions.parse(args.toArray(new String[0]));
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String contentType(ReportFormat format) {
+        switch (format) {
+            case JSONL:
+                return "application/x-ndjson; charset=utf-8";
+            case SARIF:
+                return "application/sarif+json; charset=utf-8";
+            default:
+                return "text/plain; charset=utf-8";
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", body.startsWith("[") || body.startsWith("{")
+                ? "application/json; charset=utf-8" : "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
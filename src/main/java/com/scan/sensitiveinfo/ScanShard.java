@@ -0,0 +1,64 @@
+package com.scan.sensitiveinfo;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * One of the shards of a scan split over several processes, given as --shard=i/N with i from 1 to N.
+ *
+ * A file belongs to a shard by a hash of its path relative to the scanned root, so every process
+ * assigns the files the same way without talking to the others, and on any machine with the same
+ * checkout. Every shard still walks and indexes the whole tree, its report positions and the getters
+ * of the other files are the same as in a single process.
+ */
+public class ScanShard {
+
+    private final int index;
+    private final int count;
+
+    public ScanShard(int index, int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("--shard must be i/N with i from 1 to N");
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    public static ScanShard parse(String value) {
+        int separator = value.indexOf('/');
+        if (separator < 0) {
+            throw new IllegalArgumentException("--shard must be i/N with i from 1 to N");
+        }
+        try {
+            return new ScanShard(Integer.parseInt(value.substring(0, separator).trim()),
+                    Integer.parseInt(value.substring(separator + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--shard must be i/N with i from 1 to N");
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Whether this shard scans file, a file of the tree at root.
+     */
+    public boolean includes(Path root, Path file) {
+        String relativePath = root.relativize(file).toString().replace(File.separatorChar, '/');
+        CRC32 hash = new CRC32();
+        hash.update(relativePath.getBytes(StandardCharsets.UTF_8));
+        return hash.getValue() % count == index - 1;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,215 @@
+package com.scan.sensitiveinfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how many files each analysis tier let through, shared by all scan workers of a run.
+ */
+public class ScanStatistics {
+
+    private final LongAdder filesScanned = new LongAdder();
+    private final LongAdder filesWithoutKeywords = new LongAdder();
+    private final LongAdder javaFilesWithoutSensitiveIdentifiers = new LongAdder();
+    private final LongAdder javaFilesParsed = new LongAdder();
+    private final LongAdder filesFromCache = new LongAdder();
+    private final LongAdder duplicateBlobs = new LongAdder();
+    private final LongAdder directoriesPruned = new LongAdder();
+    private final LongAdder indexedGetters = new LongAdder();
+    private final LongAdder archivesScanned = new LongAdder();
+    private final LongAdder repositoriesScanned = new LongAdder();
+    private final List<String> failedRepositories = Collections.synchronizedList(new ArrayList<>());
+    private final ScanMetrics metrics = new ScanMetrics(this);
+    private volatile ScanShard shard;
+
+    void recordScanned(boolean isJavaFile, int candidates, long bytes) {
+        filesScanned.increment();
+        metrics.recordContent(candidates, bytes);
+        if (candidates == SensitiveInfoScanner.NO_HITS) {
+            filesWithoutKeywords.increment();
+        } else if (isJavaFile && candidates == SensitiveInfoScanner.KEYWORD_HITS) {
+            javaFilesWithoutSensitiveIdentifiers.increment();
+        } else if (isJavaFile) {
+            javaFilesParsed.increment();
+        }
+    }
+
+    void recordCached() {
+        filesFromCache.increment();
+    }
+
+    void recordDuplicate() {
+        duplicateBlobs.increment();
+    }
+
+    void recordPrunedDirectory() {
+        directoriesPruned.increment();
+    }
+
+    void recordIndexedGetters(int getters) {
+        indexedGetters.add(getters);
+    }
+
+    void recordArchive() {
+        archivesScanned.increment();
+    }
+
+    void recordRepository() {
+        repositoriesScanned.increment();
+    }
+
+    void recordFailedRepository(String repository, String error) {
+        failedRepositories.add(repository + " (" + error + ")");
+    }
+
+    /**
+     * Adds the counts and metrics of another scan, such as the scan of one of several repositories.
+     */
+    void add(ScanStatistics other) {
+        filesScanned.add(other.getFilesScanned());
+        filesWithoutKeywords.add(other.getFilesWithoutKeywords());
+        javaFilesWithoutSensitiveIdentifiers.add(other.getJavaFilesWithoutSensitiveIdentifiers());
+        javaFilesParsed.add(other.getJavaFilesParsed());
+        filesFromCache.add(other.getFilesFromCache());
+        duplicateBlobs.add(other.getDuplicateBlobs());
+        directoriesPruned.add(other.getDirectoriesPruned());
+        indexedGetters.add(other.getIndexedGetters());
+        archivesScanned.add(other.getArchivesScanned());
+        metrics.add(other.getMetrics());
+    }
+
+    /**
+     * Adds the counts in the summary of the partial report of a shard. Every shard walks and indexes the
+     * whole tree, those counts are the same in every shard and are taken once.
+     */
+    void addShardSummary(Map<String, String> summary) {
+        filesScanned.add(count(summary, "filesScanned"));
+        filesWithoutKeywords.add(count(summary, "filesWithoutKeywords"));
+        javaFilesWithoutSensitiveIdentifiers.add(count(summary, "javaFilesWithoutSensitiveIdentifiers"));
+        javaFilesParsed.add(count(summary, "javaFilesParsed"));
+        filesFromCache.add(count(summary, "filesFromCache"));
+        duplicateBlobs.add(count(summary, "duplicateBlobs"));
+        archivesScanned.add(count(summary, "archivesScanned"));
+        directoriesPruned.add(Math.max(0, count(summary, "directoriesPruned") - getDirectoriesPruned()));
+        indexedGetters.add(Math.max(0, count(summary, "indexedGetters") - getIndexedGetters()));
+    }
+
+    private static long count(Map<String, String> summary, String name) {
+        String value = summary.get(name);
+        try {
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad count " + name + "=" + value + " in a shard summary");
+        }
+    }
+
+    void setShard(ScanShard shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * The shard this run scanned, null when it scanned all files.
+     */
+    public ScanShard getShard() {
+        return shard;
+    }
+
+    public long getFilesScanned() {
+        return filesScanned.sum();
+    }
+
+    public long getFilesWithoutKeywords() {
+        return filesWithoutKeywords.sum();
+    }
+
+    public long getJavaFilesWithoutSensitiveIdentifiers() {
+        return javaFilesWithoutSensitiveIdentifiers.sum();
+    }
+
+    public long getJavaFilesParsed() {
+        return javaFilesParsed.sum();
+    }
+
+    /**
+     * Unchanged files whose findings were replayed from the scan cache, they are not part of the other counts.
+     */
+    public long getFilesFromCache() {
+        return filesFromCache.sum();
+    }
+
+    /**
+     * Files of a Git tree that were not scanned because the same blob was already scanned at another path.
+     */
+    public long getDuplicateBlobs() {
+        return duplicateBlobs.sum();
+    }
+
+    /**
+     * Ignored directories that were skipped without listing their content.
+     */
+    public long getDirectoriesPruned() {
+        return directoriesPruned.sum();
+    }
+
+    /**
+     * Sensitive getters in the project index, the getters delegating to another one included.
+     */
+    public long getIndexedGetters() {
+        return indexedGetters.sum();
+    }
+
+    /**
+     * Archives whose entries were scanned, nested archives included. Their entries count as files scanned.
+     */
+    public long getArchivesScanned() {
+        return archivesScanned.sum();
+    }
+
+    /**
+     * Repositories of a multi-repository run that were fetched and scanned, 0 for other runs.
+     */
+    public long getRepositoriesScanned() {
+        return repositoriesScanned.sum();
+    }
+
+    /**
+     * Repositories of a multi-repository run that could not be fetched or scanned, with the reason.
+     */
+    public List<String> getFailedRepositories() {
+        synchronized (failedRepositories) {
+            return new ArrayList<>(failedRepositories);
+        }
+    }
+
+    /**
+     * Timings and check counts of the same run.
+     */
+    public ScanMetrics getMetrics() {
+        return metrics;
+    }
+
+    public List<String> getSummary() {
+        List<String> summary = new ArrayList<>();
+        summary.add("Files scanned: " + getFilesScanned());
+        summary.add("Files skipped by the keyword pre-filter: " + getFilesWithoutKeywords());
+        summary.add("Java files not parsed, no sensitive identifier: " + getJavaFilesWithoutSensitiveIdentifiers());
+        summary.add("Java files parsed: " + getJavaFilesParsed());
+        summary.add("Unchanged files replayed from the cache: " + getFilesFromCache());
+        summary.add("Duplicate blobs skipped: " + getDuplicateBlobs());
+        summary.add("Ignored directories skipped: " + getDirectoriesPruned());
+        summary.add("Sensitive getters in the project index: " + getIndexedGetters());
+        summary.add("Archives scanned: " + getArchivesScanned());
+        List<String> failed = getFailedRepositories();
+        if (getRepositoriesScanned() > 0 || !failed.isEmpty()) {
+            summary.add("Repositories scanned: " + getRepositoriesScanned());
+            summary.add("Repositories failed: " + failed.size());
+            for (String repository : failed) {
+                summary.add("Not scanned: " + repository);
+            }
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,133 @@
+package com.scan.sensitiveinfo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of scan workers feeding one report.
+ *
+ * Each submitted scan reserves its place in the report at submission time, so the findings come out
+ * in submission order however the workers are scheduled. The number of scans waiting for a worker is
+ * bounded, a producer walking a huge tree blocks instead of queueing every file up front. The findings
+ * get their fingerprints relative to the root of the scan, see {@link Finding#locate}.
+ */
+class ScanWorkers implements AutoCloseable {
+
+    /**
+     * Scans one file or blob and returns its findings.
+     */
+    interface FileScan {
+        List<Finding> scan() throws Exception;
+    }
+
+    private static final int QUEUED_SCANS_PER_THREAD = 64;
+
+    private final ExecutorService workers;
+    private final Path root;
+    private final ReportGenerator report;
+    private final ScanMetrics metrics;
+    private final Semaphore capacity;
+    private int running;
+    private IOException failure;
+
+    ScanWorkers(Path root, int threads, ReportGenerator report, ScanMetrics metrics) {
+        this.workers = Executors.newFixedThreadPool(threads, new NamedThreadFactory("scan-worker"));
+        this.root = root;
+        this.report = report;
+        this.metrics = metrics;
+        this.capacity = new Semaphore(threads * QUEUED_SCANS_PER_THREAD);
+    }
+
+    /**
+     * Queues the scan of file, which names it in the metrics.
+     */
+    void submit(Path file, FileScan scan) throws InterruptedException {
+        capacity.acquire();
+        long sequence = report.reserveSequence();
+        synchronized (this) {
+            running++;
+        }
+        workers.execute(() -> {
+            try {
+                List<Finding> findings = Collections.emptyList();
+                long started = System.nanoTime();
+                try {
+                    findings = scan.scan();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                metrics.recordFile(file.toString(), System.nanoTime() - started, findings);
+                report.addFileFindings(sequence, Finding.locate(findings, root));
+            } catch (IOException e) {
+                fail(e);
+            } finally {
+                capacity.release();
+                finished();
+            }
+        });
+    }
+
+    /**
+     * Keeps the place in the report of a file that another process scans, so that the positions of the
+     * files are the same in every process.
+     */
+    void skip() throws IOException {
+        report.addFileFindings(report.reserveSequence(), Collections.emptyList());
+    }
+
+    /**
+     * Waits until every submitted scan has handed its findings to the report.
+     */
+    void awaitAll() throws InterruptedException, IOException {
+        synchronized (this) {
+            while (running > 0) {
+                wait();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private synchronized void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private synchronized void finished() {
+        running--;
+        if (running == 0) {
+            notifyAll();
+        }
+    }
+
+    // Numbers the threads of a pool and keeps them from holding the JVM open
+    static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,104 +1,303 @@
 package com.scan.sensitiveinfo;
 
 
-import org.eclipse.jgit.api.Git;
-
-import java.io.File;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.Arrays;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Scanner {
 
     public static void traverseRepository(String cloneDir, String outputFile) throws Exception {
-        ConfigLoader.loadSensitivePatternsConfig();
-        ConfigLoader.loadIgnorePathsConfig();
-        ConfigLoader.loadFileTypesConfig();
-        ConfigLoader.loadLogPatternsConfig();
-        ConfigLoader.loadIgnoreVariablesConfig();
+        traverseRepository(cloneDir, outputFile, new ScanOptions());
+    }
 
-        List<String> ignorePaths = ConfigLoader.getIgnorePaths();
-        List<String> fileTypes = ConfigLoader.getFileTypes(); // Load file extensions to scan
+    /**
+     * Scans the repository and streams the findings to the report at outputFile.
+     */
+    public static ScanStatistics traverseRepository(String cloneDir, String outputFile, ScanOptions options) throws Exception {
+        ScanRules rules = ScanRules.load();
+        ScanStatistics statistics;
+        try (ReportGenerator report = ReportGenerator.open(outputFile, options.getFormat())) {
+            statistics = scanDirectory(Paths.get(cloneDir), rules, options, report);
+            report.setStatistics(statistics);
+        }
+        statistics.getMetrics().writeNextTo(outputFile);
+        return statistics;
+    }
 
-        Files.walk(Paths.get(cloneDir))
-                .filter(Files::isRegularFile)
-                .filter(path -> ignorePaths.stream().noneMatch(path.toString()::contains))
-                .forEach(path -> {
-                    try {
-                        // Check if the file has a valid extension based on the property file
-                        boolean isSupportedFileType = fileTypes.stream()
-                                .anyMatch(ext -> path.toString().endsWith(ext));
+    /**
+     * Scans the directory with the index, cache, .gitignore, archive and shard settings of options.
+     */
+    static ScanStatistics scanDirectory(Path root, ScanRules rules, ScanOptions options, ReportGenerator report) throws Exception {
+        ScanStatistics statistics = new ScanStatistics();
+        statistics.setShard(options.getShard());
+        ArchiveScanner.Limits archives = options.isArchives()
+                ? new ArchiveScanner.Limits(options.getArchiveDepth(), options.getArchiveSize()) : null;
+        List<Path> files = walk(root, rules, options.isGitignore(), archives != null, statistics);
+        GetterIndex index = buildIndex(files, GetterIndex.FILE_SYSTEM, rules, options.getThreads(), options.getIndexFile(), statistics);
+        // Findings depend on the getters of other files, a new getter invalidates the cache
+        ScanCache cache = options.getCacheFile() == null ? null
+                : ScanCache.open(options.getCacheFile(), rules.getVersion() + ":" + index.getVersion()
+                + (archives == null ? "" : ":archives=" + options.getArchiveDepth() + "/" + options.getArchiveSize()));
+        scanFiles(root, files, options.getShard(), rules, options.getThreads(), report, cache, index, archives, statistics);
+        if (cache != null) {
+            cache.save(root.toString());
+        }
+        return statistics;
+    }
 
-                        if (isSupportedFileType) {
-                            SensitiveInfoScanner.scanFile(path, outputFile);
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                });
+    /**
+     * Exit status of --staged when the scan itself failed, so that a hook does not take the failure for findings.
+     * xargs, which passes the staged files, stops at 255 and exits with 124, other statuses become 123.
+     */
+    static final int STAGED_SCAN_FAILED = 255;
+
+    /**
+     * Scans the lines staged in the Git repository at location and writes the findings to standard output,
+     * without a summary. Returns the number of findings.
+     *
+     * A pre-commit hook passes the staged files as paths. When the rules scan none of them, nothing else is
+     * loaded, neither JGit nor JavaParser, and the hook costs little more than the JVM start.
+     */
+    static long scanStaged(String location, List<String> paths, ScanOptions options) throws Exception {
+        ScanRules rules = ScanRules.load();
+        // Files are named as in Git, src/A.java and not ./src/A.java
+        Path root = Paths.get(location).normalize();
+        List<String> scannedPaths = new ArrayList<>();
+        for (String path : paths) {
+            Path file = root.resolve(path);
+            if (!rules.isIgnoredPath(file) && rules.isSupportedFileType(file)) {
+                scannedPaths.add(path);
+            }
+        }
+        if (!paths.isEmpty() && scannedPaths.isEmpty()) {
+            return 0;
+        }
+
+        // The report must not close standard output
+        FilterWriter out = new FilterWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        ReportGenerator report = new ReportGenerator(out, options.getFormat());
+        try {
+            GitDiffScanner.scanStaged(location, scannedPaths, rules, options.getThreads(), report);
+        } finally {
+            report.close();
+        }
+        return report.getFindingCount();
+    }
+
+    /**
+     * Walks the repository and scans the matching files on a pool of worker threads.
+     * Files get a report sequence number in path order and are handed to the workers, which pass
+     * the findings of each file to the report under that number, so the report keeps a stable order.
+     */
+    public static ScanStatistics traverseRepository(Path root, ScanRules rules, int threads, ReportGenerator report) throws Exception {
+        return traverseRepository(root, rules, threads, report, null);
+    }
+
+    /**
+     * Same as above, unchanged files replay their findings from the cache when there is one.
+     */
+    public static ScanStatistics traverseRepository(Path root, ScanRules rules, int threads, ReportGenerator report,
+                                                    ScanCache cache) throws Exception {
+        return traverseRepository(root, rules, threads, report, cache, false);
+    }
+
+    /**
+     * Same as above, files and directories matched by .gitignore files in the tree are skipped as well when honorGitignore is set.
+     * The cache has to be opened with the version of the getter index as well, which this builds in memory.
+     */
+    public static ScanStatistics traverseRepository(Path root, ScanRules rules, int threads, ReportGenerator report,
+                                                    ScanCache cache, boolean honorGitignore) throws Exception {
+        ScanStatistics statistics = new ScanStatistics();
+        List<Path> files = walk(root, rules, honorGitignore, false, statistics);
+        GetterIndex index = buildIndex(files, GetterIndex.FILE_SYSTEM, rules, threads, null, statistics);
+        scanFiles(root, files, null, rules, threads, report, cache, index, null, statistics);
+        return statistics;
+    }
+
+    private static List<Path> walk(Path root, ScanRules rules, boolean honorGitignore, boolean archives,
+                                   ScanStatistics statistics) throws IOException {
+        ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+        List<Path> files = RepositoryWalker.collectFiles(root, rules, honorGitignore, archives, statistics);
+        timer.record(ScanMetrics.Phase.WALK);
+        return files;
+    }
+
+    /**
+     * First pass of a scan, indexes the sensitive getters of all Java files among files. The index saved in
+     * indexFile, when there is one, is reused for the unchanged files and replaced afterwards.
+     */
+    static GetterIndex buildIndex(List<Path> files, GetterIndex.ContentSource source, ScanRules rules, int threads,
+                                  Path indexFile, ScanStatistics statistics) throws Exception {
+        GetterIndex previous = indexFile == null ? null : GetterIndex.load(indexFile, rules);
+        GetterIndex index = GetterIndex.build(files, source, rules, threads, previous, statistics);
+        statistics.recordIndexedGetters(index.getGetterCount());
+        if (indexFile != null) {
+            index.save(indexFile);
+        }
+        return index;
+    }
+
+    private static void scanFiles(Path root, List<Path> files, ScanShard shard, ScanRules rules, int threads, ReportGenerator report,
+                                  ScanCache cache, GetterIndex index, ArchiveScanner.Limits archives,
+                                  ScanStatistics statistics) throws Exception {
+        try (ScanWorkers workers = new ScanWorkers(root, threads, report, statistics.getMetrics())) {
+            for (Path path : files) {
+                if (shard != null && !shard.includes(root, path)) {
+                    workers.skip();
+                    continue;
+                }
+                workers.submit(path, () -> scanFile(path, rules, statistics, cache, index, archives));
+            }
+            workers.awaitAll();
+        }
+    }
+
+    private static List<Finding> scanFile(Path path, ScanRules rules, ScanStatistics statistics, ScanCache cache,
+                                          GetterIndex index, ArchiveScanner.Limits archives) throws IOException {
+        boolean archive = archives != null && ArchiveScanner.isArchive(path);
+        if (cache == null) {
+            return archive ? ArchiveScanner.scan(path, rules, statistics, index, archives)
+                    : SensitiveInfoScanner.scanFile(path, rules, statistics, index);
+        }
+
+        String key = path.toString();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        List<Finding> cached = cache.lookup(key, size, modified);
+        if (cached == null && archive) {
+            // Archives are streamed, not read whole to compare a content hash, a new time means a new scan
+            List<Finding> findings = ArchiveScanner.scan(path, rules, statistics, index, archives);
+            cache.store(key, size, modified, new byte[ScanCache.HASH_LENGTH], findings);
+            return findings;
+        }
+        if (cached == null) {
+            ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+            byte[] content = Files.readAllBytes(path);
+            timer.record(ScanMetrics.Phase.READ);
+            byte[] contentHash = ScanCache.hash(content);
+            cached = cache.lookup(key, size, modified, contentHash);
+            if (cached == null) {
+                List<Finding> findings = SensitiveInfoScanner.scanContent(path, content, rules, statistics, null, index);
+                cache.store(key, size, modified, contentHash, findings);
+                return findings;
+            }
+        }
+        statistics.recordCached();
+        return cached;
     }
 
     public static void main(String[] args) throws Exception {
-        String clonedLocation = args[0];
-        String outputFile = args[1];
+        try {
+            run(args);
+        } catch (Exception e) {
+            if (!isStaged(args)) {
+                throw e;
+            }
+            System.err.println("The scan of the staged changes failed: " + e);
+            System.exit(STAGED_SCAN_FAILED);
+        }
+    }
+
+    // Whether --staged comes before the end of the options, known even when the options cannot be parsed
+    private static boolean isStaged(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--")) {
+                return false;
+            }
+            if (arg.equals("--staged") || arg.equals("--staged=true")) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        traverseRepository(clonedLocation, outputFile);
-        ReportGenerator.generateReport(outputFile);
+    private static void run(String[] args) throws Exception {
+        ScanOptions options = ScanOptions.parse(args);
+        if (options.getServePort() > 0) {
+            // The server threads keep the JVM running
+            ScanServer.start(options);
+            return;
+        }
+        if (options.getMergeReport() != null) {
+            // --merge=<report> <partial report>...
+            List<Path> partials = new ArrayList<>();
+            for (String partial : options.getArguments()) {
+                partials.add(Paths.get(partial));
+            }
+            if (partials.isEmpty()) {
+                throw new IllegalArgumentException("--merge needs the partial reports of the shards");
+            }
+            ReportMerger.merge(partials, options.getMergeReport(), options.getFormat());
+            return;
+        }
+        if (options.isStaged()) {
+            // <repository> --staged [--] [staged file...], a pre-commit hook fails on findings
+            List<String> paths = options.getArguments().subList(1, Math.max(1, options.getArguments().size()));
+            if (scanStaged(options.getArgument(0), paths, options) > 0) {
+                System.exit(1);
+            }
+            return;
+        }
+        if (options.isRepositories()) {
+            RepositoryScheduler.scanRepositories(options.getArgument(0), options);
+            return;
+        }
+        String clonedLocation = options.getArgument(0);
+        String outputFile = options.getArgument(1);
+
+        if (options.getBase() != null) {
+            GitDiffScanner.scanRepository(clonedLocation, options.getBase(), options.getRef(), outputFile, options);
+        } else if (options.getHistory() > 0) {
+            GitDiffScanner.scanHistory(clonedLocation, options.getRef(), options.getHistory(), outputFile, options);
+        } else if (options.isGit()) {
+            GitTreeScanner.scanRepository(clonedLocation, options.getRef(), outputFile, options);
+        } else {
+            traverseRepository(clonedLocation, outputFile, options);
+        }
         /*
         //This is for if we need to work with git repos directly
         String branch = "releaseems700";
         cloneAndScanRepositories(branch);
-        ReportGenerator.generateReport("sensitive_info_report.txt");
 
          */
     }
 
     /**
-     * This is not getting used
+     * Clones the repositories of git_repos.properties and scans branch, or HEAD, of each into sensitive_info_report.txt.
      * @param branch
      * @throws Exception
      */
     public static void cloneAndScanRepositories(String... branch) throws Exception {
-        ConfigLoader.loadGitReposConfig();
-        List<String> gitRepos = ConfigLoader.getGitReposConfig();
-
-        for (int i = 0; i < gitRepos.size(); i++) {
-            String repoUrl = gitRepos.get(i);
-            String cloneDir = "cloned_repo_" + (i + 1);
-
-            System.out.println("Cloning repository: " + repoUrl);
-
-            // Set up SSH session factory with the private key
-            /*SshSessionFactory.setInstance(new OpenSshSessionFactory() {
-                @Override
-                protected void configure(OpenSshConfig.Host host, Session session) {
-                    // Specify your private key file here
-                    session.addIdentity("/Users/asgupta6/.ssh"); // Path to your private SSH key
-                }
-            });*/
-
-
-            Git.cloneRepository()
-                    .setURI(repoUrl)
-                    .setBranchesToClone(Arrays.asList(branch))
-                    .setDirectory(new File(cloneDir))
-                    .call();
-
-            System.out.println("Repository cloned to " + cloneDir);
-            traverseRepository(cloneDir);
+        ScanOptions options = new ScanOptions().setCloneDirectory(Paths.get("."));
+        if (branch.length > 0) {
+            options.setRef(branch[0]);
         }
+        RepositoryScheduler.scanRepositories("sensitive_info_report.txt", options);
     }
 
     /**
      * this is not getting used
      * @param cloneDir
+     * @param report
      * @throws Exception
      */
-    public static void traverseRepository(String cloneDir) throws Exception {
+    public static void traverseRepository(String cloneDir, ReportGenerator report) throws Exception {
         ConfigLoader.loadSensitivePatternsConfig();
         ConfigLoader.loadIgnorePathsConfig();
 
-        List<String> sensitivePatterns = ConfigLoader.getSensitivePatternsConfig();
+        KeywordMatcher sensitivePatterns = new KeywordMatcher(ConfigLoader.getSensitivePatternsConfig(), true);
         List<String> ignorePaths = ConfigLoader.getIgnorePaths();
 
         Files.walk(Paths.get(cloneDir))
@@ -109,7 +308,7 @@ public class Scanner {
                         if (path.toString().endsWith(".java")
                                 || path.toString().endsWith(".properties")
                                 || path.toString().endsWith(".yml")) {
-                            SensitiveInfoScanner.scanFile(path, sensitivePatterns);
+                            report.addFileFindings(report.reserveSequence(), SensitiveInfoScanner.scanFile(path, sensitivePatterns));
                         }
                     } catch (Exception e) {
                         e.printStackTrace();
@@ -1,198 +1,365 @@
 package com.scan.sensitiveinfo;
 
-import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.FieldDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.stmt.ExpressionStmt;
-import com.github.javaparser.ast.stmt.ReturnStmt;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 public class SensitiveInfoScanner {
 
-    public static void scanFile(Path filePath, List<String> sensitivePatterns) throws IOException {
-        Files.lines(filePath).forEach(line -> {
-            for (String pattern : sensitivePatterns) {
-                Pattern compiledPattern = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
-                if (compiledPattern.matcher(line).find()) {
-                    ReportGenerator.addToReport(pattern, filePath, line);
+    // How far the keyword pre-filter lets a file through
+    static final int NO_HITS = 0;
+    static final int KEYWORD_HITS = 1;
+    static final int IDENTIFIER_HITS = 2;
+
+    public static final String RULE_SENSITIVE_KEYWORD = "sensitive-keyword";
+    public static final String RULE_SENSITIVE_INFO = "sensitive-info";
+    public static final String RULE_SENSITIVE_DATA_LOGGED = "sensitive-data-logged";
+    public static final String RULE_SENSITIVE_ATTRIBUTE_LOGGED = "sensitive-attribute-logged";
+    public static final String RULE_HIGH_ENTROPY_STRING = "high-entropy-string";
+
+    public static List<Finding> scanFile(Path filePath, List<String> sensitivePatterns) throws IOException {
+        return scanFile(filePath, new KeywordMatcher(sensitivePatterns, true));
+    }
+
+    /**
+     * Reports every keyword found on a line, once per keyword and in the order of the keyword list.
+     */
+    public static List<Finding> scanFile(Path filePath, KeywordMatcher sensitivePatterns) throws IOException {
+        List<Finding> findings = new ArrayList<>();
+        boolean[] found = new boolean[sensitivePatterns.size()];
+        final int[] lineNumber = {0};
+        try (Stream<String> lines = Files.lines(filePath)) {
+            lines.forEach(line -> {
+                lineNumber[0]++;
+                Arrays.fill(found, false);
+                sensitivePatterns.findAll(line, (keyword, start, end) -> found[keyword] = true);
+                for (int keyword = 0; keyword < found.length; keyword++) {
+                    if (found[keyword]) {
+                        findings.add(Finding.of(RULE_SENSITIVE_KEYWORD, sensitivePatterns.getKeyword(keyword), filePath, lineNumber[0], line));
+                    }
                 }
-            }
-        });
+            });
+        }
+        return findings;
     }
 
-    public static void scanFile(Path filePath, String outputFile) throws IOException {
+    /**
+     * Runs all checks on one file and returns its findings in the order they were found.
+     */
+    public static List<Finding> scanFile(Path filePath, ScanRules rules, ScanStatistics statistics) throws IOException {
+        return scanFile(filePath, rules, statistics, null);
+    }
 
-        List<String> sensitivePatterns = ConfigLoader.getSensitivePatternsConfig();
-        List<Pattern> logPatterns = ConfigLoader.getLogPatterns();
-        List<Pattern> ignoreVariables = ConfigLoader.getIgnoreVariables();
+    /**
+     * Same as above, Java files are also checked against the getters of the project index when there is one.
+     */
+    public static List<Finding> scanFile(Path filePath, ScanRules rules, ScanStatistics statistics, GetterIndex index) throws IOException {
+        ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+        if (isJavaFile(filePath)) {
+            byte[] content = Files.readAllBytes(filePath);
+            timer.record(ScanMetrics.Phase.READ);
+            return scanContent(filePath, content, rules, statistics, null, index);
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer content = read(channel);
+            timer.record(ScanMetrics.Phase.READ);
+            return scanBytes(filePath, content, rules, statistics, null);
+        }
+    }
+
+    /**
+     * Runs all checks on content that was already read, filePath names the file in the findings.
+     */
+    public static List<Finding> scanContent(Path filePath, byte[] content, ScanRules rules, ScanStatistics statistics) throws IOException {
+        return scanContent(filePath, content, rules, statistics, null);
+    }
 
+    /**
+     * Same as above, but only reports findings on the given line numbers, all lines when it is null.
+     * The whole file is still parsed, fields declared on other lines count for the lines checked.
+     */
+    public static List<Finding> scanContent(Path filePath, byte[] content, ScanRules rules, ScanStatistics statistics,
+                                            BitSet checkedLines) throws IOException {
+        return scanContent(filePath, content, rules, statistics, checkedLines, null);
+    }
+
+    /**
+     * Same as above, with the getters of the project index. A log statement calling a sensitive getter of
+     * a class the file names is reported, and the file is not parsed again when the index has its summary.
+     */
+    public static List<Finding> scanContent(Path filePath, byte[] content, ScanRules rules, ScanStatistics statistics,
+                                            BitSet checkedLines, GetterIndex index) throws IOException {
         // Check the file extension
-        String fileName = filePath.getFileName().toString();
-        boolean isJavaFile = fileName.endsWith(".java");
+        if (!isJavaFile(filePath)) {
+            return scanBytes(filePath, ByteBuffer.wrap(content), rules, statistics, checkedLines);
+        }
 
-        // Analyze the Java source for getter methods returning sensitive fields (for Java files)
+        List<Finding> findings = new ArrayList<>();
+        KeywordMatcher sensitiveKeywords = rules.getSensitiveMatcher();
+        ScanMetrics metrics = statistics.getMetrics();
+        ScanMetrics.CheckCounter checks = new ScanMetrics.CheckCounter();
+        ScanMetrics.PhaseTimer timer = metrics.startTimer();
+
+        // Random strings do not need a keyword nearby, they are looked for in every file
+        List<Finding> randomStrings = rules.getEntropyDetector().scan(filePath, ByteBuffer.wrap(content), checkedLines, checks);
+
+        // Tier 1: every check below needs a sensitive keyword somewhere in the file, or a class of the index
+        int candidates = findCandidates(content, sensitiveKeywords);
+        statistics.recordScanned(true, candidates, content.length);
+        Map<String, String> referencedGetters = index == null ? Collections.emptyMap() : index.getReferencedGetters(content);
+        if (!checks.count(ScanMetrics.Check.KEYWORD_PREFILTER, candidates != NO_HITS) && referencedGetters.isEmpty()) {
+            timer.record(ScanMetrics.Phase.MATCH);
+            metrics.recordChecks(checks);
+            return byLine(findings, randomStrings);
+        }
+
+        // Tier 2: sensitive fields are named after a keyword, so without a keyword that stands alone as
+        // an identifier there are no sensitive fields and getters, and the file is not parsed.
+        // Otherwise the file is parsed once, the same analysis feeds the line checks and the log statement checks below
+        String source = new String(content, StandardCharsets.UTF_8);
+        JavaSourceAnalyzer.Summary analysis = null;
         Map<String, String> methodToFieldMap = new HashMap<>();
-        if (isJavaFile) {
-            CompilationUnit cu = parseJavaFile(filePath);
-            methodToFieldMap = collectSensitiveGetters(cu, sensitivePatterns);
+        if (candidates == IDENTIFIER_HITS) {
+            timer.record(ScanMetrics.Phase.MATCH);
+            analysis = index == null ? null : index.lookup(filePath, content);
+            if (analysis == null) {
+                CompilationUnit cu = JavaSourceAnalyzer.parse(filePath, source);
+                timer.record(ScanMetrics.Phase.PARSE);
+                analysis = JavaSourceAnalyzer.analyze(cu, rules).summarize();
+            }
+            methodToFieldMap.putAll(analysis.getSensitiveGetters());
+            timer.record(ScanMetrics.Phase.ANALYZE);
         }
 
-        // Open file and stream lines
-        try (Stream<String> lines = Files.lines(filePath)) {
+        // Stream the lines of the content read above
+        try (Stream<String> lines = new BufferedReader(new StringReader(source)).lines()) {
 
             // Track line numbers for reporting
             final int[] lineNumber = {0};
 
-            Map<String, String> finalMethodToFieldMap = methodToFieldMap;
+            KeywordMatcher sensitiveGetters = new KeywordMatcher(methodToFieldMap.keySet(), false);
+            KeywordMatcher referencedCalls = new KeywordMatcher(referencedGetters.keySet(), false);
             lines.forEach(line -> {
                 lineNumber[0]++; // Increment the line number
 
-                if (line != null) {
+                if (line != null && (checkedLines == null || checkedLines.get(lineNumber[0]))) {
                     String trimmedLine = line.trim();
 
-                    // For Java files, we perform additional checks
-                    if (isJavaFile) {
-                        // For Java files, check for sensitive attributes being printed/logged
-
-                        // Step 1: Check if sensitive attributes are being printed/logged
-                        boolean isSensitiveAttributeLogged = logPatterns.stream()
-                                .anyMatch(pattern -> pattern.matcher(trimmedLine).find()) &&
-                                sensitivePatterns.stream().anyMatch(attr -> trimmedLine.contains(attr));
-
-                        // Step 2: Check if the log statement contains a method call that returns a sensitive field
-                        boolean sensitiveMethodLogged = finalMethodToFieldMap.entrySet().stream()
-                                .anyMatch(entry -> trimmedLine.contains(entry.getKey()) && logPatterns.stream()
-                                        .anyMatch(pattern -> pattern.matcher(trimmedLine).find()));
-
-                        // Step 3: Ignore if the sensitive word is part of a variable or method name
-                        boolean isVariableOrMethod = ignoreVariables.stream()
-                                .anyMatch(pattern -> pattern.matcher(trimmedLine).find());
-
-                        // Step 4: Log the finding if sensitive information is printed
-                        if ((isSensitiveAttributeLogged || sensitiveMethodLogged) && !isVariableOrMethod) {
-                            String message = "Sensitive data logged at line " + lineNumber[0] + " in file " + filePath.toString();
-                            ReportGenerator.addToReport(message, filePath, "" + lineNumber[0]);
-                        }
-                    } else {
-                        // For non-Java files, we use the existing logic
-
-                        // Step 1: Check for sensitive keywords directly in the code
-                        boolean containsSensitiveInfo = sensitivePatterns.stream()
-                                .anyMatch(sensitivePattern -> trimmedLine.contains(sensitivePattern));
-
-                        // Step 2: Ignore if the sensitive word is part of a variable or method name
-                        boolean isVariableOrMethod = ignoreVariables.stream().anyMatch(pattern -> pattern.matcher(trimmedLine).find());
-
-                        if (containsSensitiveInfo && !isVariableOrMethod) {
-                            // Add the line number and file path to the report instead of the line content
-                            String message = "Sensitive info found at line " + lineNumber[0] + " in file " + filePath.toString();
-                            ReportGenerator.addToReport(message, filePath, ""+lineNumber[0]);
-                        }
+                    // The keyword checks are cheaper than the regular expressions, so they go first
+                    // For Java files, check for sensitive attributes being printed/logged
+
+                    // Step 1: Check if sensitive attributes or methods returning a sensitive field are used, the getters
+                    // of other classes only when they are called
+                    boolean containsSensitiveInfo = checks.count(ScanMetrics.Check.KEYWORDS, sensitiveKeywords.containsAny(trimmedLine))
+                            || checks.count(ScanMetrics.Check.SENSITIVE_GETTERS, sensitiveGetters.containsAny(trimmedLine)
+                            || GetterIndex.callsAny(referencedCalls, trimmedLine));
+
+                    // Step 2: Check if they are being printed/logged
+                    // Step 3: Ignore if the sensitive word is part of a variable or method name
+                    // Step 4: Log the finding if sensitive information is printed
+                    if (containsSensitiveInfo
+                            && checks.count(ScanMetrics.Check.LOG_PATTERNS, rules.isLogStatement(trimmedLine))
+                            && !checks.count(ScanMetrics.Check.IGNORE_VARIABLES, rules.isIgnoredVariable(trimmedLine))) {
+                        String message = "Sensitive data logged at line " + lineNumber[0] + " in file " + filePath.toString();
+                        findings.add(Finding.of(RULE_SENSITIVE_DATA_LOGGED, message, filePath, lineNumber[0], trimmedLine));
                     }
                 }
             });
-        } catch (IOException e) {
-            e.printStackTrace();
         }
 
+        timer.record(ScanMetrics.Phase.MATCH);
+
         // Step 4: Analyze the source code for sensitive attributes and add findings to the report for Java files
-        if (isJavaFile) {
-            analyzeSourceCode(filePath, sensitivePatterns);
+        if (analysis != null) {
+            analyzeSourceCode(filePath, analysis, checkedLines, checks, findings);
+            timer.record(ScanMetrics.Phase.ANALYZE);
         }
+        metrics.recordChecks(checks);
+        return byLine(findings, randomStrings);
     }
 
-    // Utility to parse a Java file into a CompilationUnit
-    private static CompilationUnit parseJavaFile(Path filePath) throws IOException {
-        JavaParser parser = new JavaParser();
-        Optional<CompilationUnit> cuOptional = parser.parse(filePath.toFile()).getResult();
-        return cuOptional.orElseThrow(() -> new IOException("Failed to parse " + filePath));
+    // The findings of a file in line order, those of one line in the order of the checks with the random strings last
+    private static List<Finding> byLine(List<Finding> findings, List<Finding> randomStrings) {
+        findings.addAll(randomStrings);
+        // List.sort is stable
+        findings.sort(Comparator.comparingInt(Finding::getLine));
+        return findings;
     }
 
-    // Method to collect all getters that return sensitive fields globally
-    private static Map<String, String> collectSensitiveGetters(CompilationUnit cu, List<String> sensitiveAttributes) {
-        Map<String, String> methodToFieldMap = new HashMap<>();
+    /**
+     * Keyword check of files other than Java sources, run on the raw bytes between the position and the
+     * limit of content. Line numbers are only counted up to a hit and only the lines with a hit are
+     * decoded into Strings, for the ignored variable check and the report.
+     */
+    static List<Finding> scanBytes(Path filePath, ByteBuffer content, ScanRules rules, ScanStatistics statistics,
+                                   BitSet checkedLines) {
+        ScanMetrics.PhaseTimer timer = statistics.getMetrics().startTimer();
+        LineScanner scanner = new LineScanner(filePath, content, rules, checkedLines);
+        rules.getSensitiveMatcher().findAll(content, content.position(), content.limit(), scanner);
+        List<Finding> findings = byLine(scanner.findings, rules.getEntropyDetector().scan(filePath, content, checkedLines, scanner.checks));
+        statistics.recordScanned(false, scanner.hit ? KEYWORD_HITS : NO_HITS, content.remaining());
+        scanner.checks.count(ScanMetrics.Check.KEYWORD_PREFILTER, scanner.hit);
+        statistics.getMetrics().recordChecks(scanner.checks);
+        timer.record(ScanMetrics.Phase.MATCH);
+        return findings;
+    }
+
+    // Small files are read into a reused buffer of the worker thread, larger ones are mapped
+    private static final int MAP_THRESHOLD = 1 << 20;
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(64 * 1024));
+
+    // The casts to Buffer keep the class running on Java 8, where ByteBuffer does not override these methods
+    private static ByteBuffer read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size >= MAP_THRESHOLD) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer buffer = READ_BUFFER.get();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit((int) size) << 1);
+            READ_BUFFER.set(buffer);
+        }
+        ((Buffer) buffer).clear();
+        ((Buffer) buffer).limit((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Read until the buffer is full or the file ends
+        }
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    private static boolean isJavaFile(Path filePath) {
+        return filePath.getFileName().toString().endsWith(".java");
+    }
 
-        // Collect all field declarations and methods
-        cu.findAll(FieldDeclaration.class).forEach(fieldDecl -> {
-            fieldDecl.getVariables().forEach(variable -> {
-                String fieldName = variable.getNameAsString();
-
-                // If the field is sensitive, find getter methods for it
-                if (sensitiveAttributes.contains(fieldName)) {
-                    cu.findAll(MethodDeclaration.class).forEach(methodDecl -> {
-                        methodDecl.getBody().ifPresent(body -> {
-                            if (body.findAll(ReturnStmt.class).stream()
-                                    .anyMatch(returnStmt -> returnStmt.toString().contains(fieldName))) {
-                                // Store the method name and the field it returns
-                                methodToFieldMap.put(methodDecl.getNameAsString(), fieldName);
-                            }
-                        });
-                    });
+    /**
+     * Turns the keyword hits of one file into findings, at most one per line. Hits arrive in content
+     * order, so the line number is counted forward from the previous hit.
+     */
+    private static class LineScanner implements KeywordMatcher.MatchListener {
+        private final Path filePath;
+        private final ByteBuffer content;
+        private final ScanRules rules;
+        private final BitSet checkedLines;
+        private final List<Finding> findings = new ArrayList<>();
+        private final ScanMetrics.CheckCounter checks = new ScanMetrics.CheckCounter();
+        private boolean hit;
+        private int lineNumber = 1;
+        private int lineStart;
+        private int countedTo;
+        private int lineEnd = -1;
+
+        LineScanner(Path filePath, ByteBuffer content, ScanRules rules, BitSet checkedLines) {
+            this.filePath = filePath;
+            this.content = content;
+            this.rules = rules;
+            this.checkedLines = checkedLines;
+            this.lineStart = content.position();
+            this.countedTo = content.position();
+        }
+
+        @Override
+        public void onMatch(int keyword, int start, int end) {
+            hit = true;
+            if (start < lineEnd) {
+                // Keywords never span lines, this line was checked already
+                return;
+            }
+
+            // Line breaks are \n, \r\n or \r alone, the same as BufferedReader counts them
+            for (int i = countedTo; i < start; i++) {
+                byte b = content.get(i);
+                if (b == '\n' || (b == '\r' && (i + 1 >= content.limit() || content.get(i + 1) != '\n'))) {
+                    lineNumber++;
+                    lineStart = i + 1;
                 }
-            });
-        });
+            }
+            countedTo = start;
+            lineEnd = end;
+            while (lineEnd < content.limit() && content.get(lineEnd) != '\n' && content.get(lineEnd) != '\r') {
+                lineEnd++;
+            }
 
-        return methodToFieldMap;
+            if (checkedLines != null && !checkedLines.get(lineNumber)) {
+                return;
+            }
+            String trimmedLine = decodeTrimmed(lineStart, lineEnd);
+
+            // Ignore if the sensitive word is part of a variable or method name
+            if (!checks.count(ScanMetrics.Check.IGNORE_VARIABLES, rules.isIgnoredVariable(trimmedLine))) {
+                // Add the line number and file path to the report instead of the line content
+                String message = "Sensitive info found at line " + lineNumber + " in file " + filePath.toString();
+                findings.add(Finding.of(RULE_SENSITIVE_INFO, message, filePath, lineNumber, trimmedLine));
+            }
+        }
+
+        // Same as String.trim, bytes up to the space are ASCII in UTF-8
+        private String decodeTrimmed(int from, int to) {
+            while (from < to && (content.get(from) & 0xFF) <= ' ') {
+                from++;
+            }
+            while (to > from && (content.get(to - 1) & 0xFF) <= ' ') {
+                to--;
+            }
+            byte[] line = new byte[to - from];
+            for (int i = 0; i < line.length; i++) {
+                line[i] = content.get(from + i);
+            }
+            return new String(line, StandardCharsets.UTF_8);
+        }
     }
 
-    private static void analyzeSourceCode(Path sourceFilePath, List<String> sensitiveAttributes) {
-        try {
-            // Parse the source file using JavaParser
-            JavaParser parser = new JavaParser();
-            Optional<CompilationUnit> cuOptional = parser.parse(sourceFilePath.toFile()).getResult();
-
-            if (cuOptional.isPresent()) {
-                CompilationUnit cu = cuOptional.get();
-
-                // Check all fields in the classes to find sensitive attributes
-                cu.findAll(FieldDeclaration.class).forEach(fieldDecl -> {
-                    fieldDecl.getVariables().forEach(variable -> {
-                        String varName = variable.getNameAsString();
-                        if (sensitiveAttributes.contains(varName)) {
-                            // If sensitive attribute is found, now look for log statements
-                            cu.findAll(MethodDeclaration.class).forEach(methodDecl -> {
-                                methodDecl.getBody().ifPresent(body -> {
-                                    body.findAll(ExpressionStmt.class).forEach(exprStmt -> {
-                                        String statement = exprStmt.toString().trim();
-
-                                        // Check if the log patterns exist and the sensitive attribute is logged
-                                        try {
-                                            if (isLogStatement(statement) && statement.contains(varName)) {
-                                                // Get line number for the log statement
-                                                int lineNumber = exprStmt.getBegin().map(pos -> pos.line).orElse(-1);
-
-                                                // Add sensitive attribute found in log statement to the report
-                                                String message = "Sensitive attribute '" + varName + "' found in log statement at line "
-                                                        + lineNumber + " in file " + sourceFilePath.toString();
-                                                ReportGenerator.addToReport(message, sourceFilePath, ""+lineNumber);
-                                            }
-                                        } catch (IOException e) {
-                                            throw new RuntimeException(e);
-                                        }
-                                    });
-                                });
-                            });
-                        }
-                    });
-                });
+    // Finds how far a file has to be analyzed with one pass of the keyword automaton over its raw bytes
+    static int findCandidates(byte[] content, KeywordMatcher sensitiveKeywords) {
+        int[] candidates = {NO_HITS};
+        sensitiveKeywords.findAll(content, 0, content.length, (keyword, start, end) -> {
+            if (!isIdentifierByte(content, start - 1) && !isIdentifierByte(content, end)) {
+                candidates[0] = IDENTIFIER_HITS;
+            } else if (candidates[0] == NO_HITS) {
+                candidates[0] = KEYWORD_HITS;
             }
+        });
+        return candidates[0];
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    static boolean isIdentifierByte(byte[] content, int index) {
+        if (index < 0 || index >= content.length) {
+            return false;
         }
+        int b = content[index] & 0xFF;
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '_' || b == '$' || b >= 0x80;
     }
 
-    /**
-     * This helper method checks if a given statement matches log patterns.
-     */
-    private static boolean isLogStatement(String statement) throws IOException {
-        List<Pattern> logPatterns = ConfigLoader.getLogPatterns();
-        return logPatterns.stream().anyMatch(pattern -> pattern.matcher(statement).find());
+    private static void analyzeSourceCode(Path sourceFilePath, JavaSourceAnalyzer.Summary analysis, BitSet checkedLines,
+                                          ScanMetrics.CheckCounter checks, List<Finding> findings) {
+        List<JavaSourceAnalyzer.LogStatement> logStatements = new ArrayList<>();
+        for (JavaSourceAnalyzer.LogStatement logStatement : analysis.getLogStatements()) {
+            if (checkedLines == null || checkedLines.get(logStatement.getLine())) {
+                logStatements.add(logStatement);
+            }
+        }
+
+        // Check all sensitive fields of the classes against the log statements
+        for (String varName : analysis.getSensitiveFields()) {
+            for (JavaSourceAnalyzer.LogStatement logStatement : logStatements) {
+                if (checks.count(ScanMetrics.Check.FIELDS_IN_LOG_STATEMENTS, logStatement.getText().contains(varName))) {
+                    // Add sensitive attribute found in log statement to the report
+                    String message = "Sensitive attribute '" + varName + "' found in log statement at line "
+                            + logStatement.getLine() + " in file " + sourceFilePath.toString();
+                    findings.add(Finding.of(RULE_SENSITIVE_ATTRIBUTE_LOGGED, message, sourceFilePath,
+                            logStatement.getLine(), logStatement.getText()));
+                }
+            }
+        }
     }
 }
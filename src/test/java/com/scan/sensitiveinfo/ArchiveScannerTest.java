@@ -0,0 +1,180 @@
+package com.scan.sensitiveinfo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArchiveScannerTest {
+
+    private static final byte[] SECRET = "secret=hunter2\n".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    @Test
+    public void zipEntriesAreNamedAfterTheArchive() throws Exception {
+        byte[] jar = zip("db.properties", SECRET, "META-INF/MANIFEST.MF", SECRET);
+        Path war = temporary.getRoot().toPath().resolve("app.war");
+        Files.write(war, zip("WEB-INF/classes/db.properties", SECRET, "WEB-INF/lib/db.jar", jar,
+                "target/generated.properties", SECRET, "WEB-INF/notes.txt", SECRET));
+
+        assertEquals(Arrays.asList(war + "!/WEB-INF/classes/db.properties", war + "!/WEB-INF/lib/db.jar!/db.properties"),
+                files(scan(war, 3)));
+        assertEquals(Collections.singletonList(war + "!/WEB-INF/classes/db.properties"), files(scan(war, 1)));
+    }
+
+    @Test
+    public void tarEntriesTakeUstarGnuAndPaxNames() throws Exception {
+        String longName = "very/" + String.join("/", Collections.nCopies(30, "deep")) + "/gnu.properties";
+        String paxName = "pax/" + String.join("/", Collections.nCopies(30, "long")) + "/pax.properties";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        tarEntry(tar, "plain.properties", "", '0', SECRET);
+        tarEntry(tar, "dir/", "", '5', new byte[0]);
+        tarEntry(tar, "prefixed.properties", "some/prefix", '0', SECRET);
+        tarEntry(tar, "././@LongLink", "", 'L', (longName + "\0").getBytes(StandardCharsets.UTF_8));
+        tarEntry(tar, "truncated", "", '0', SECRET);
+        tarEntry(tar, "PaxHeaders/pax", "", 'x', paxRecord("path=" + paxName));
+        tarEntry(tar, "truncated-too", "", '0', SECRET);
+        tarEntry(tar, "link.properties", "", '2', new byte[0]);
+        tarEntry(tar, "inner.zip", "", '0', zip("in/zip.properties", SECRET));
+        tar.write(new byte[1024]);
+
+        Path plain = temporary.getRoot().toPath().resolve("bundle.tar");
+        Files.write(plain, tar.toByteArray());
+        List<String> expected = Arrays.asList(plain + "!/plain.properties", plain + "!/some/prefix/prefixed.properties",
+                plain + "!/" + longName, plain + "!/" + paxName, plain + "!/inner.zip!/in/zip.properties");
+        assertEquals(expected, files(scan(plain, 3)));
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(tar.toByteArray());
+        }
+        Path compressed = temporary.getRoot().toPath().resolve("bundle.tgz");
+        Files.write(compressed, gzipped.toByteArray());
+        List<String> expectedCompressed = new ArrayList<>();
+        for (String file : expected) {
+            expectedCompressed.add(compressed + file.substring(plain.toString().length()));
+        }
+        assertEquals(expectedCompressed, files(scan(compressed, 3)));
+    }
+
+    @Test
+    public void malformedPaxRecordsSkipOnlyTheirArchive() throws Exception {
+        for (String record : new String[]{"3\n", "1 \n", "2 \n"}) {
+            ByteArrayOutputStream inner = new ByteArrayOutputStream();
+            tarEntry(inner, "before.properties", "", '0', SECRET);
+            tarEntry(inner, "PaxHeaders/bad", "", 'x', record.getBytes(StandardCharsets.UTF_8));
+            tarEntry(inner, "after-pax.properties", "", '0', SECRET);
+            inner.write(new byte[1024]);
+            ByteArrayOutputStream outer = new ByteArrayOutputStream();
+            tarEntry(outer, "inner.tar", "", '0', inner.toByteArray());
+            tarEntry(outer, "after.properties", "", '0', SECRET);
+            outer.write(new byte[1024]);
+
+            Path archive = temporary.getRoot().toPath().resolve("outer.tar");
+            Files.write(archive, outer.toByteArray());
+            assertEquals(record, Arrays.asList(archive + "!/inner.tar!/before.properties", archive + "!/after.properties"),
+                    files(scan(archive, 3)));
+        }
+    }
+
+    @Test
+    public void brokenArchiveKeepsTheFindingsReadBefore() throws Exception {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        tarEntry(tar, "first.properties", "", '0', SECRET);
+        byte[] content = Arrays.copyOf(tar.toByteArray(), tar.size() + 100);
+        Path broken = temporary.getRoot().toPath().resolve("broken.tar");
+        Files.write(broken, content);
+        assertEquals(Collections.singletonList(broken + "!/first.properties"), files(scan(broken, 3)));
+    }
+
+    @Test
+    public void sizeLimitStopsTheScan() throws Exception {
+        byte[] big = new byte[3 << 20];
+        Path archive = temporary.getRoot().toPath().resolve("big.zip");
+        Files.write(archive, zip("a.properties", SECRET, "big.bin", big, "b.properties", SECRET));
+        ScanStatistics statistics = new ScanStatistics();
+        List<Finding> findings = ArchiveScanner.scan(archive, TestRules.create(), statistics, null, new ArchiveScanner.Limits(3, 1 << 20));
+        assertEquals(Collections.singletonList(archive + "!/a.properties"), files(findings));
+        assertTrue(ArchiveScanner.isArchive(archive));
+    }
+
+    private static List<Finding> scan(Path archive, int depth) throws IOException {
+        return ArchiveScanner.scan(archive, TestRules.create(), new ScanStatistics(), null, new ArchiveScanner.Limits(depth, 16 << 20));
+    }
+
+    private static List<String> files(List<Finding> findings) {
+        List<String> files = new ArrayList<>();
+        for (Finding finding : findings) {
+            files.add(finding.getFile());
+        }
+        return files;
+    }
+
+    // Pairs of entry name and content
+    static byte[] zip(Object... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) entries[i]));
+                zip.write((byte[]) entries[i + 1]);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void tarEntry(ByteArrayOutputStream out, String name, String prefix, char type, byte[] content) throws IOException {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, String.format("%011o", content.length));
+        put(header, 136, "00000000000");
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        put(header, 345, prefix);
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        put(header, 148, String.format("%06o", checksum));
+        header[154] = 0;
+        out.write(header);
+        out.write(content);
+        out.write(new byte[(512 - content.length % 512) % 512]);
+    }
+
+    private static byte[] paxRecord(String keyValue) {
+        // The length counts itself, the space and the newline
+        int length = keyValue.length() + 3;
+        while (String.valueOf(length).length() + keyValue.length() + 2 != length) {
+            length++;
+        }
+        return (length + " " + keyValue + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
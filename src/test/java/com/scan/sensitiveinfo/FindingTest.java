@@ -0,0 +1,76 @@
+package com.scan.sensitiveinfo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class FindingTest {
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    @Test
+    public void fingerprintsDoNotDependOnTheCheckoutDirectory() {
+        List<Finding> first = Finding.locate(Arrays.asList(
+                Finding.of("sensitive-info", "m", Paths.get("/home/a/repo/conf/app.properties"), 3, "secret=1")),
+                Paths.get("/home/a/repo"));
+        List<Finding> second = Finding.locate(Arrays.asList(
+                Finding.of("sensitive-info", "m", Paths.get("/tmp/clone-42/conf/app.properties"), 9, "  secret=1 ")),
+                Paths.get("/tmp/clone-42"));
+        List<Finding> otherFile = Finding.locate(Arrays.asList(
+                Finding.of("sensitive-info", "m", Paths.get("/tmp/clone-42/conf/other.properties"), 3, "secret=1")),
+                Paths.get("/tmp/clone-42"));
+        assertEquals(first.get(0).getFingerprint(), second.get(0).getFingerprint());
+        assertNotEquals(first.get(0).getFingerprint(), otherFile.get(0).getFingerprint());
+        assertEquals("/tmp/clone-42/conf/app.properties", second.get(0).getFile());
+    }
+
+    @Test
+    public void duplicateSnippetsCountTheirOccurrence() {
+        Path file = Paths.get("repo/app.war!/WEB-INF/db.properties");
+        List<Finding> located = Finding.locate(Arrays.asList(
+                Finding.of("sensitive-info", "m", file, 1, "secret=1"),
+                Finding.of("sensitive-info", "m", file, 5, "secret=1"),
+                Finding.of("sensitive-keyword", "m", file, 5, "secret=1"),
+                Finding.of("sensitive-info", "m", Paths.get("repo/app.war!/WEB-INF/other.properties"), 1, "secret=1")),
+                Paths.get("repo"));
+        HashSet<String> fingerprints = new HashSet<>();
+        for (Finding finding : located) {
+            fingerprints.add(finding.getFingerprint());
+        }
+        assertEquals(4, fingerprints.size());
+    }
+
+    @Test
+    public void scansOfTwoCopiesGiveTheSameFingerprints() throws Exception {
+        List<List<String>> reports = new ArrayList<>();
+        for (String copy : Arrays.asList("one", "two/nested")) {
+            Path root = temporary.newFolder(copy.split("/")).toPath();
+            TestRules.write(root, "conf/app.properties", "secret=1\nname=x\nsecret=1\n");
+            TestRules.write(root, "src/A.java", "class A {\n    void f() {\n        log.info(\"token \" + token);\n    }\n}\n");
+            Path report = temporary.newFile().toPath();
+            try (ReportGenerator generator = ReportGenerator.open(report.toString(), ReportFormat.JSONL)) {
+                Scanner.scanDirectory(root, TestRules.create(), new ScanOptions().setThreads(2), generator);
+            }
+            List<String> fingerprints = new ArrayList<>();
+            for (String line : Files.readAllLines(report)) {
+                fingerprints.add(line.replaceAll(".*\"fingerprint\":\"([0-9a-f]+)\".*", "$1"));
+            }
+            reports.add(fingerprints);
+        }
+        assertEquals(3, reports.get(0).size());
+        assertEquals(3, new HashSet<>(reports.get(0)).size());
+        assertEquals(reports.get(0), reports.get(1));
+    }
+}
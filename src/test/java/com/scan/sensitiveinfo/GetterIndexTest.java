@@ -0,0 +1,89 @@
+package com.scan.sensitiveinfo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GetterIndexTest {
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    @Test
+    public void delegationsResolveAgainstTheReceiverType() throws Exception {
+        Path root = temporary.newFolder("repo").toPath();
+        TestRules.write(root, "src/p/TokenIterator.java",
+                "package p;\nclass TokenIterator {\n    private String token;\n    String next() { return token; }\n}\n");
+        TestRules.write(root, "src/p/Account.java",
+                "package p;\nclass Account {\n    private String password;\n    String getPassword() { return password; }\n"
+                        + "    String current() { return getPassword(); }\n}\n");
+        TestRules.write(root, "src/p/Wrapper.java",
+                "package p;\nimport java.util.Iterator;\nclass Wrapper {\n    private Iterator<String> it;\n"
+                        + "    String nextElement() { return it.next(); }\n}\n");
+        TestRules.write(root, "src/q/Holder.java",
+                "package q;\nimport p.Account;\nclass Holder {\n    private Account account;\n"
+                        + "    String credentialOf() { return account.getPassword(); }\n}\n");
+
+        GetterIndex index = build(root);
+        Map<String, Map<String, String>> getters = index.getGetters();
+        assertEquals(Collections.singletonMap("next", "token"), getters.get("p.TokenIterator"));
+        assertEquals(Arrays.asList("current", "getPassword"), new ArrayList<>(getters.get("p.Account").keySet()));
+        assertEquals(Collections.singletonMap("credentialOf", "password"), getters.get("q.Holder"));
+        assertFalse(getters.containsKey("p.Wrapper"));
+    }
+
+    @Test
+    public void onlyCallsOfReferencedGettersAreSensitive() throws Exception {
+        Path root = temporary.newFolder("repo").toPath();
+        TestRules.write(root, "src/p/TokenIterator.java",
+                "package p;\nclass TokenIterator {\n    private String token;\n    String next() { return token; }\n}\n");
+        TestRules.write(root, "src/p/Printer.java",
+                "package p;\n"
+                        + "class Printer {\n"
+                        + "    void print(java.util.Enumeration<String> e, TokenIterator t, java.util.Iterator<String> it) {\n"
+                        + "        System.out.println(e.nextElement());\n"
+                        + "        log.info(\"hasNext \" + it.hasNext());\n"
+                        + "        log.info(t.next ());\n"
+                        + "    }\n"
+                        + "}\n");
+
+        GetterIndex index = build(root);
+        List<Finding> findings = SensitiveInfoScanner.scanFile(root.resolve("src/p/Printer.java"), TestRules.create(),
+                new ScanStatistics(), index);
+        assertEquals(1, findings.size());
+        assertEquals(6, findings.get(0).getLine());
+    }
+
+    @Test
+    public void callsAnyMatchesWholeNamesFollowedByAParenthesis() {
+        KeywordMatcher getters = new KeywordMatcher(Collections.singletonList("next"), false);
+        assertTrue(GetterIndex.callsAny(getters, "log.info(it.next());"));
+        assertTrue(GetterIndex.callsAny(getters, "log.info(hasNext() + it.next\t());"));
+        assertFalse(GetterIndex.callsAny(getters, "log.info(it.hasNext());"));
+        assertFalse(GetterIndex.callsAny(getters, "log.info(e.nextElement());"));
+        assertFalse(GetterIndex.callsAny(getters, "log.info(\"the next step\");"));
+        assertFalse(GetterIndex.callsAny(getters, "log.info(next);"));
+    }
+
+    private static GetterIndex build(Path root) throws Exception {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        return GetterIndex.build(files, GetterIndex.FILE_SYSTEM, TestRules.create(), 2, null, new ScanStatistics());
+    }
+}
@@ -0,0 +1,95 @@
+package com.scan.sensitiveinfo;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeywordMatcherTest {
+
+    private static final List<String> KEYWORDS = Arrays.asList("password", "passwd", "secret", "salt", "cert", "community",
+            "auth", "devicepass", "devicepasswd", "nodepass", "nodepasswd", "token", "apiKey");
+
+    @Test
+    public void containsAnyIsStringContains() {
+        KeywordMatcher matcher = new KeywordMatcher(KEYWORDS, false);
+        String[] lines = {
+                "", "password", "String passwd = get();", "Password", "PASSWORD", "pass word", "devicepasswd",
+                "log.info(\"certificate\")", "apikey", "apiKey=1", "tokens", "tok en", "sal", "s\u00e4lt", "communit",
+                "\u00fc\u00f6password\u20ac", "\ud83d\udd11 secret", "nodepas"
+        };
+        for (String line : lines) {
+            assertEquals(line, KEYWORDS.stream().anyMatch(line::contains), matcher.containsAny(line));
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            assertEquals(line, KEYWORDS.stream().anyMatch(line::contains), matcher.containsAny(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    public void findAllReportsEveryOccurrence() {
+        Random random = new Random(42);
+        List<String> keywords = Arrays.asList("ab", "abc", "bca", "c", "aaa", "\u00e9a");
+        KeywordMatcher matcher = new KeywordMatcher(keywords, false);
+        for (int round = 0; round < 2000; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(30); i > 0; i--) {
+                text.append("abc\u00e9x".charAt(random.nextInt(5)));
+            }
+            String line = text.toString();
+
+            List<String> expected = new ArrayList<>();
+            for (int keyword = 0; keyword < keywords.size(); keyword++) {
+                String word = keywords.get(keyword);
+                for (int start = line.indexOf(word); start >= 0; start = line.indexOf(word, start + 1)) {
+                    expected.add(keyword + "@" + start + "-" + (start + word.length()));
+                }
+            }
+            List<String> found = new ArrayList<>();
+            matcher.findAll(line, (keyword, start, end) -> found.add(keyword + "@" + start + "-" + end));
+            Collections.sort(expected);
+            Collections.sort(found);
+            assertEquals(line, expected, found);
+            assertEquals(line, !expected.isEmpty(), matcher.containsAny(line));
+        }
+    }
+
+    @Test
+    public void byteOffsetsCountUtf8Bytes() {
+        KeywordMatcher matcher = new KeywordMatcher(Collections.singletonList("secret"), false);
+        byte[] content = "\u00e9\u00e9 secret".getBytes(StandardCharsets.UTF_8);
+        List<Integer> starts = new ArrayList<>();
+        matcher.findAll(ByteBuffer.wrap(content), 0, content.length, (keyword, start, end) -> starts.add(start));
+        assertEquals(Collections.singletonList(5), starts);
+        assertFalse(matcher.containsAny(content, 0, 8));
+        assertTrue(matcher.containsAny(ByteBuffer.wrap(content), 0, content.length));
+    }
+
+    @Test
+    public void caseInsensitiveFoldsAsciiLikePattern() {
+        KeywordMatcher matcher = new KeywordMatcher(KEYWORDS, true);
+        String[] lines = {"PASSWORD", "Secret", "APIKEY", "t\u00f6ken", "SALT\u00c4", "nothing here"};
+        for (String line : lines) {
+            boolean expected = KEYWORDS.stream()
+                    .anyMatch(keyword -> Pattern.compile(Pattern.quote(keyword), Pattern.CASE_INSENSITIVE).matcher(line).find());
+            assertEquals(line, expected, matcher.containsAny(line));
+        }
+    }
+
+    @Test
+    public void emptyKeywordsAreLeftOut() {
+        KeywordMatcher matcher = new KeywordMatcher(Arrays.asList("", "key"), false);
+        assertEquals(1, matcher.size());
+        assertFalse(matcher.containsAny("nothing"));
+        assertTrue(matcher.containsAny("monkey"));
+    }
+}
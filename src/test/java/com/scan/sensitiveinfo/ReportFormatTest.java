@@ -0,0 +1,40 @@
+package com.scan.sensitiveinfo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReportFormatTest {
+
+    private static final Pattern URI_FIELD = Pattern.compile("\"uri\":\"([^\"]*)\"");
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    @Test
+    public void sarifLocationsAreEncodedFileUris() throws Exception {
+        Path file = temporary.getRoot().toPath().resolve("my conf").resolve("app #2 100%.properties");
+        StringWriter out = new StringWriter();
+        ReportFormat.FindingWriter writer = ReportFormat.SARIF.newWriter(out);
+        writer.begin();
+        writer.write(Finding.of("sensitive-info", "m", file, 3, "secret=1"));
+        writer.end(null);
+
+        Matcher matcher = URI_FIELD.matcher(out.toString());
+        assertTrue(out.toString(), matcher.find());
+        String uri = matcher.group(1);
+        assertTrue(uri, uri.startsWith("file:/"));
+        assertTrue(uri, uri.endsWith("/my%20conf/app%20%232%20100%25.properties"));
+        assertEquals(file, Paths.get(new URI(uri)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.scan.sensitiveinfo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ReportMergerTest {
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void createTree() throws IOException {
+        root = temporary.newFolder("repo").toPath();
+        for (int i = 0; i < 20; i++) {
+            TestRules.write(root, "src/p" + (i % 4) + "/Account" + i + ".java",
+                    "package p;\n"
+                            + "public class Account" + i + " {\n"
+                            + "    private String password;\n"
+                            + "    public String getPassword() {\n"
+                            + "        return password;\n"
+                            + "    }\n"
+                            + "    void print() {\n"
+                            + "        log.info(\"password \" + password);\n"
+                            + "        System.out.println(getPassword());\n"
+                            + "    }\n"
+                            + "}\n");
+            TestRules.write(root, "config/app" + i + ".properties", "name=app\nsecret=s" + i + "\ntoken=t\n");
+            TestRules.write(root, "docs/readme" + i + ".yml", "nothing: here\n");
+        }
+        TestRules.write(root, "src/Printer.java",
+                "class Printer {\n    void print(Account3 account) {\n        log.info(account.getPassword());\n    }\n}\n");
+    }
+
+    @Test
+    public void mergedShardsEqualSingleProcess() throws Exception {
+        for (ReportFormat format : Arrays.asList(ReportFormat.TEXT, ReportFormat.JSONL, ReportFormat.SARIF)) {
+            Path single = scan(null, format);
+            List<Path> partials = new ArrayList<>();
+            for (int shard = 1; shard <= 3; shard++) {
+                partials.add(scan(new ScanShard(shard, 3), ReportFormat.PARTIAL));
+            }
+            Path merged = temporary.getRoot().toPath().resolve("merged." + format);
+            ReportMerger.merge(partials, merged.toString(), format);
+
+            List<String> expected = Files.readAllLines(single);
+            assertTrue(expected.size() > 60);
+            assertEquals(format.toString(), expected, Files.readAllLines(merged));
+        }
+    }
+
+    @Test
+    public void partialReportsTwiceAreMergedOnce() throws Exception {
+        Path single = scan(null, ReportFormat.JSONL);
+        List<Path> partials = new ArrayList<>();
+        for (int shard = 1; shard <= 2; shard++) {
+            partials.add(scan(new ScanShard(shard, 2), ReportFormat.PARTIAL));
+        }
+        partials.add(partials.get(0));
+        Path merged = temporary.getRoot().toPath().resolve("merged.jsonl");
+        ReportMerger.merge(partials, merged.toString(), ReportFormat.JSONL);
+        assertEquals(Files.readAllLines(single), Files.readAllLines(merged));
+    }
+
+    @Test
+    public void mergeIsAnOptionNotAPath() throws Exception {
+        List<String> args = new ArrayList<>();
+        Path merged = temporary.getRoot().toPath().resolve("merged.jsonl");
+        args.add("--merge=" + merged);
+        for (int shard = 1; shard <= 2; shard++) {
+            args.add(scan(new ScanShard(shard, 2), ReportFormat.PARTIAL).toString());
+        }
+        args.add("--format=jsonl");
+        Scanner.main(args.toArray(new String[0]));
+        assertEquals(Files.readAllLines(scan(null, ReportFormat.JSONL)), Files.readAllLines(merged));
+
+        assertEquals(Arrays.asList("merge", "report.txt"), ScanOptions.parse("merge", "report.txt").getArguments());
+        for (String[] invalid : new String[][]{{"--merge"}, {"--merge=" + merged}, {"--merge=" + merged, "--shard=1/2", "a"}}) {
+            try {
+                Scanner.main(invalid);
+                fail(String.join(" ", invalid));
+            } catch (IllegalArgumentException e) {
+                // refused
+            }
+        }
+    }
+
+    @Test
+    public void missingShardIsAnError() throws Exception {
+        List<Path> partials = Arrays.asList(scan(new ScanShard(1, 3), ReportFormat.PARTIAL),
+                scan(new ScanShard(3, 3), ReportFormat.PARTIAL));
+        try {
+            ReportMerger.merge(partials, temporary.getRoot().toPath().resolve("merged.txt").toString(), ReportFormat.TEXT);
+            fail("merged without shard 2");
+        } catch (IOException e) {
+            assertEquals("The partial report of shard 2/3 is missing", e.getMessage());
+        }
+    }
+
+    private Path scan(ScanShard shard, ReportFormat format) throws Exception {
+        ScanOptions options = new ScanOptions().setThreads(3).setShard(shard).setFormat(format);
+        Path report = temporary.newFile().toPath();
+        try (ReportGenerator generator = ReportGenerator.open(report.toString(), format)) {
+            generator.setStatistics(Scanner.scanDirectory(root, TestRules.create(), options, generator));
+        }
+        return report;
+    }
+}
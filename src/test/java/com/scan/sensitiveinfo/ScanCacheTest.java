@@ -0,0 +1,151 @@
+package com.scan.sensitiveinfo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ScanCacheTest {
+
+    private static final byte[] HASH = ScanCache.hash(new byte[]{1, 2, 3});
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    @Test
+    public void findingsSurviveARoundTrip() throws Exception {
+        Path cacheFile = temporary.getRoot().toPath().resolve("scan.cache");
+        String file = root() + File.separator + "app.properties";
+        List<Finding> findings = Arrays.asList(
+                new Finding("sensitive-info", "Sensitive info found at line 2", file, 2, "0123456789abcdef0123456789abcdef"),
+                new Finding("high-entropy-string", "High entropy string found at line 7 \u2713", file, 7, "fedcba9876543210fedcba9876543210"));
+        ScanCache cache = ScanCache.open(cacheFile, "rules-1");
+        cache.store(file, 42, 1000, HASH, findings);
+        cache.save(root());
+
+        ScanCache reopened = ScanCache.open(cacheFile, "rules-1");
+        assertFindings(findings, reopened.lookup(file, 42, 1000));
+        assertFindings(findings, reopened.lookup(file, 42, 2000, HASH));
+        assertNull(reopened.lookup(file, 43, 1000));
+        assertNull(reopened.lookup(file, 42, 3000, ScanCache.hash(new byte[]{4})));
+        assertNull(ScanCache.open(cacheFile, "rules-2").lookup(file, 42, 1000));
+    }
+
+    @Test
+    public void findingsOfArchiveEntriesKeepTheirNames() throws Exception {
+        Path root = temporary.newFolder("archives").toPath();
+        Path war = root.resolve("app.war");
+        byte[] secret = "secret=hunter2\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(war, ArchiveScannerTest.zip("WEB-INF/classes/db.properties", secret, "WEB-INF/lib/db.jar",
+                ArchiveScannerTest.zip("db.properties", secret)));
+        Files.setLastModifiedTime(war, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        Path cacheFile = temporary.getRoot().toPath().resolve("scan.cache");
+        ScanOptions options = new ScanOptions().setArchives(true).setCacheFile(cacheFile).setFormat(ReportFormat.JSONL);
+
+        List<String> first = scan(root, options);
+        List<String> second = scan(root, options);
+        assertEquals(2, first.stream().filter(line -> line.contains("app.war!/")).count());
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void corruptCachesAreIgnored() throws Exception {
+        Path cacheFile = temporary.getRoot().toPath().resolve("scan.cache");
+        String file = root() + File.separator + "app.properties";
+        ScanCache cache = ScanCache.open(cacheFile, "rules-1");
+        cache.store(file, 42, 1000, HASH, Collections.singletonList(
+                new Finding("sensitive-info", "Sensitive info found at line 2", file, 2, "0123456789abcdef0123456789abcdef")));
+        cache.save(root());
+        byte[] saved = Files.readAllBytes(cacheFile);
+        // The finding count follows the path, size, time and content hash of the only entry
+        int findingCount = 4 + 4 + 4 + "rules-1".length() + 4 + 4 + file.getBytes(StandardCharsets.UTF_8).length + 8 + 8
+                + ScanCache.HASH_LENGTH;
+
+        for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+            byte[] corrupt = saved.clone();
+            ByteBuffer.wrap(corrupt).putInt(findingCount, count);
+            Files.write(cacheFile, corrupt);
+            assertNull(ScanCache.open(cacheFile, "rules-1").lookup(file, 42, 1000));
+        }
+        Files.write(cacheFile, Arrays.copyOf(saved, saved.length - 10));
+        assertNull(ScanCache.open(cacheFile, "rules-1").lookup(file, 42, 1000));
+    }
+
+    @Test
+    public void recentlyModifiedFilesAreVerifiedByContent() throws Exception {
+        Path cacheFile = temporary.getRoot().toPath().resolve("scan.cache");
+        String file = root() + File.separator + "Recent.java";
+        long now = System.currentTimeMillis();
+        ScanCache cache = ScanCache.open(cacheFile, "rules-1");
+        cache.store(file, 10, now, HASH, Collections.emptyList());
+        cache.save(root());
+
+        ScanCache reopened = ScanCache.open(cacheFile, "rules-1");
+        assertNull(reopened.lookup(file, 10, now));
+        assertEquals(Collections.emptyList(), reopened.lookup(file, 10, now, HASH));
+    }
+
+    @Test
+    public void savesMergeOtherTreesAndDropDeletedFiles() throws Exception {
+        Path cacheFile = temporary.getRoot().toPath().resolve("scan.cache");
+        String other = temporary.newFolder("other").getPath() + File.separator + "a.yml";
+        String kept = root() + File.separator + "kept.yml";
+        String deleted = root() + File.separator + "deleted.yml";
+
+        ScanCache first = ScanCache.open(cacheFile, "rules-1");
+        first.store(kept, 1, 1000, HASH, Collections.emptyList());
+        first.store(deleted, 1, 1000, HASH, Collections.emptyList());
+        first.save(root());
+        ScanCache otherTree = ScanCache.open(cacheFile, "rules-1");
+        otherTree.store(other, 1, 1000, HASH, Collections.emptyList());
+        otherTree.save(new File(other).getParent());
+
+        ScanCache rescan = ScanCache.open(cacheFile, "rules-1");
+        rescan.lookup(kept, 1, 1000);
+        rescan.save(root());
+
+        ScanCache reopened = ScanCache.open(cacheFile, "rules-1");
+        assertEquals(Collections.emptyList(), reopened.lookup(kept, 1, 1000));
+        assertEquals(Collections.emptyList(), reopened.lookup(other, 1, 1000));
+        assertNull(reopened.lookup(deleted, 1, 1000));
+    }
+
+    private List<String> scan(Path root, ScanOptions options) throws Exception {
+        Path report = temporary.newFile().toPath();
+        try (ReportGenerator generator = ReportGenerator.open(report.toString(), options.getFormat())) {
+            generator.setStatistics(Scanner.scanDirectory(root, TestRules.create(), options, generator));
+        }
+        List<String> findings = new ArrayList<>(Files.readAllLines(report));
+        // The summary counts the files read from the cache
+        findings.removeIf(line -> line.startsWith("{\"summary\""));
+        return findings;
+    }
+
+    private String root() {
+        return temporary.getRoot().toPath().resolve("repo").toString();
+    }
+
+    static void assertFindings(List<Finding> expected, List<Finding> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getRule(), actual.get(i).getRule());
+            assertEquals(expected.get(i).getMessage(), actual.get(i).getMessage());
+            assertEquals(expected.get(i).getFile(), actual.get(i).getFile());
+            assertEquals(expected.get(i).getLine(), actual.get(i).getLine());
+            assertEquals(expected.get(i).getFingerprint(), actual.get(i).getFingerprint());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.scan.sensitiveinfo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScanOptionsTest {
+
+    @Test
+    public void argumentsAfterTwoDashesAreNotOptions() {
+        ScanOptions options = ScanOptions.parse(".", "--staged", "--", "--foo", "--cache=x.properties", "--", "a.yml");
+        assertTrue(options.isStaged());
+        assertEquals(null, options.getCacheFile());
+        assertEquals(Arrays.asList(".", "--foo", "--cache=x.properties", "--", "a.yml"), options.getArguments());
+    }
+}
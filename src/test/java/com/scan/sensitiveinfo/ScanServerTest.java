@@ -0,0 +1,67 @@
+package com.scan.sensitiveinfo;
+
+import com.sun.net.httpserver.Headers;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ScanServerTest {
+
+    private static final String TOKEN = "0123456789abcdef0123456789abcdef";
+
+    @Test
+    public void jobsTakeOnlyTheScanParameters() {
+        ScanOptions options = ScanServer.parseJob("path=%2Frepos%2Fapp&base=origin%2Fmain&format=jsonl&timeout=60", 4, 600);
+        assertEquals("/repos/app", options.getArgument(0));
+        assertEquals("origin/main", options.getBase());
+        assertTrue(options.isGit());
+        assertEquals(ReportFormat.JSONL, options.getFormat());
+        assertEquals(60, options.getTimeoutSeconds());
+        assertEquals(4, options.getThreads());
+
+        for (String query : new String[]{"path=/a&cache=/etc/x", "path=/a&index=/tmp/i", "path=/a&clone-dir=/tmp/c",
+                "path=/a&repos", "path=/a&serve=8081", "path=/a&threads=64", "ref=HEAD"}) {
+            try {
+                ScanServer.parseJob(query, 4, 600);
+                fail(query);
+            } catch (IllegalArgumentException e) {
+                // refused
+            }
+        }
+        ScanOptions dashes = ScanServer.parseJob("path=--cache%3D/etc/x", 4, 600);
+        assertEquals("--cache=/etc/x", dashes.getArgument(0));
+        assertNull(dashes.getCacheFile());
+    }
+
+    @Test
+    public void onlyLocalCallersWithTheTokenAreAccepted() {
+        assertNull(ScanServer.checkCaller(headers("127.0.0.1:8080", null, TOKEN), TOKEN));
+        assertNull(ScanServer.checkCaller(headers("localhost:8080", "http://localhost:3000", TOKEN), TOKEN));
+        assertNull(ScanServer.checkCaller(headers("[::1]:8080", null, TOKEN), TOKEN));
+
+        assertNotNull(ScanServer.checkCaller(headers("127.0.0.1:8080", null, null), TOKEN));
+        assertNotNull(ScanServer.checkCaller(headers("127.0.0.1:8080", null, "0123"), TOKEN));
+        assertNotNull(ScanServer.checkCaller(headers("attacker.example:8080", null, TOKEN), TOKEN));
+        assertNotNull(ScanServer.checkCaller(headers(null, null, TOKEN), TOKEN));
+        assertNotNull(ScanServer.checkCaller(headers("127.0.0.1:8080", "https://attacker.example", TOKEN), TOKEN));
+        assertNotNull(ScanServer.checkCaller(headers("127.0.0.1:8080", "null", TOKEN), TOKEN));
+    }
+
+    private static Headers headers(String host, String origin, String token) {
+        Headers headers = new Headers();
+        if (host != null) {
+            headers.set("Host", host);
+        }
+        if (origin != null) {
+            headers.set("Origin", origin);
+        }
+        if (token != null) {
+            headers.set(ScanServer.TOKEN_HEADER, token);
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,40 @@
+package com.scan.sensitiveinfo;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+/**
+ * Rules of the tests, independent of the property files shipped with the scanner.
+ */
+final class TestRules {
+
+    static final EntropyDetector ENTROPY = new EntropyDetector(true, 16, 24, 4.2, 3.2);
+
+    private TestRules() {
+    }
+
+    static ScanRules create() {
+        return create(EntropyDetector.DISABLED);
+    }
+
+    static ScanRules create(EntropyDetector entropyDetector) {
+        return new ScanRules(Arrays.asList("password", "secret", "token", "apiKey"),
+                Arrays.asList(Pattern.compile("log"), Pattern.compile("System.out")),
+                Collections.singletonList(Pattern.compile(".*passwordHash.*")),
+                Arrays.asList("target/", "node_modules/**"),
+                Arrays.asList(".java", ".properties", ".yml"),
+                entropyDetector);
+    }
+
+    static Path write(Path root, String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}